@@ -1,5 +1,6 @@
 plugins {
     id("java")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -10,16 +11,55 @@ dependencies {
     compileOnly("net.portswigger.burp.extensions:montoya-api:2025.7")
     implementation("com.google.code.gson:gson:2.11.0")
     implementation("org.apache.httpcomponents.client5:httpclient5:5.3.1")
+
+    jmh("net.portswigger.burp.extensions:montoya-api:2025.7")
+
+    testImplementation("net.portswigger.burp.extensions:montoya-api:2025.7")
+    testImplementation(platform("org.junit:junit-bom:5.10.2"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 tasks.withType<JavaCompile> {
     sourceCompatibility = "21"
     targetCompatibility = "21"
     options.encoding = "UTF-8"
+    // VectorDelimiters (engine=vector); only loaded at runtime when the module is present
+    options.compilerArgs.addAll(listOf("--add-modules", "jdk.incubator.vector"))
+}
+
+// ./gradlew test  (src/test/java: resume and engine-equivalence checks)
+tasks.test {
+    useJUnitPlatform()
+    jvmArgs("--add-modules=jdk.incubator.vector")
 }
 
 tasks.jar {
     duplicatesStrategy = DuplicatesStrategy.EXCLUDE
     from(configurations.runtimeClasspath.get().filter { it.isDirectory })
     from(configurations.runtimeClasspath.get().filterNot { it.isDirectory }.map { zipTree(it) })
-}
\ No newline at end of file
+}
+
+// ./gradlew jmh  (benchmarks live in src/jmh/java)
+jmh {
+    jmhVersion.set("1.37")
+    profilers.add("gc") // report B/op next to every score
+    jvmArgsAppend.add("--add-modules=jdk.incubator.vector")
+}
+
+// MB/s and B/op for every hot path over the synthetic corpus (see bench.ThroughputReport)
+tasks.register<JavaExec>("benchReport") {
+    group = "verification"
+    description = "Runs the JMH suite with -prof gc and prints MB/s and B/op per benchmark."
+    classpath(tasks.named("jmhJar"))
+    mainClass.set("bench.ThroughputReport")
+    jvmArgs("--add-modules=jdk.incubator.vector") // inherited by the JMH forks
+}
+
+// Host normalization must stay within its allocation budget (JMH GC profiler, see bench.AllocationBudget)
+tasks.register<JavaExec>("allocationBudget") {
+    group = "verification"
+    description = "Runs HostNormalizationBenchmark with -prof gc and fails above the B/op budget."
+    classpath(tasks.named("jmhJar"))
+    mainClass.set("bench.AllocationBudget")
+}
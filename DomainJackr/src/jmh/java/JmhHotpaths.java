@@ -0,0 +1,68 @@
+// JmhHotpaths.java
+// Default-package bridge so the JMH benchmarks in package "bench" can reach package-private code.
+
+import bench.Hotpaths;
+import org.apache.hc.client5.http.psl.PublicSuffixMatcher;
+import org.apache.hc.client5.http.psl.PublicSuffixMatcherLoader;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public final class JmhHotpaths implements Hotpaths {
+    private final PublicSuffixMatcher matcher = PublicSuffixMatcherLoader.getDefault();
+    private final SuffixTrie trie = SuffixTrie.getDefault();
+
+    // Shared like the one Extension owns; the cache stays warm across invocations, as in Burp.
+    private final DomainExtractor scanner =
+            new DomainExtractor(trie, DomainExtractor.Engine.SCANNER, HostCache.fromSystemProperty());
+    private final DomainExtractor vector =
+            new DomainExtractor(trie, DomainExtractor.Engine.VECTOR, HostCache.fromSystemProperty());
+    private final DomainExtractor regex =
+            new DomainExtractor(trie, DomainExtractor.Engine.REGEX, HostCache.fromSystemProperty());
+    private final DomainExtractor uncached = new DomainExtractor(trie, DomainExtractor.Engine.SCANNER, null);
+
+    @Override
+    public String matcherRoot(String host) {
+        return matcher.getDomainRoot(host);
+    }
+
+    @Override
+    public int trieRootStart(String host) {
+        return trie.rootStart(host, 0, host.length());
+    }
+
+    @Override
+    public String hostFromAuthority(CharSequence s, int from, int to) {
+        return DomainExtractor.hostFromAuthority(s, from, to);
+    }
+
+    @Override
+    public List<String> extractDomains(String input, String engine) {
+        DomainExtractor extractor = switch (engine) {
+            case "vector" -> vector;
+            case "regex" -> regex;
+            default -> scanner;
+        };
+        return extractor.extractDomains(input);
+    }
+
+    @Override
+    public List<String> extractBody(String body, String mode) {
+        Set<String> out = new LinkedHashSet<>();
+        DomainExtractor.ContentMode m = DomainExtractor.ContentMode.valueOf(mode.toUpperCase(Locale.ROOT));
+        scanner.extractInto(body, m, DomainExtractor.INITIAL_STATE, out);
+        return List.copyOf(out);
+    }
+
+    @Override
+    public String registrableDomain(String host, boolean cached) {
+        return (cached ? scanner : uncached).registrableDomain(host);
+    }
+
+    @Override
+    public boolean isProbablyTextual(String contentType) {
+        return ResponseLoggerPassiveCheck.isProbablyTextual(contentType);
+    }
+}
@@ -0,0 +1,45 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+
+/**
+ * Allocation-budget check ({@code ./gradlew allocationBudget}): runs HostNormalizationBenchmark under
+ * the JMH GC profiler and exits non-zero if {@code gc.alloc.rate.norm} exceeds the budget.
+ */
+public final class AllocationBudget {
+    // Only the returned host may be allocated: a short String plus its byte[] is ~56-64 B.
+    // Averaged over the corpus (IPs and brackets allocate nothing, mixed case needs a scratch char[]).
+    static final double BYTES_PER_OP = 80.0;
+
+    private AllocationBudget() {}
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(HostNormalizationBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(opt).run();
+
+        boolean over = false;
+        for (RunResult r : results) {
+            Result<?> alloc = r.getSecondaryResults().get("gc.alloc.rate.norm");
+            if (alloc == null) continue;
+            double perOp = alloc.getScore();
+            String name = r.getParams().getBenchmark();
+            System.out.printf("%s: %.1f B/op (budget %.1f)%n", name, perOp, BYTES_PER_OP);
+            if (perOp > BYTES_PER_OP) over = true;
+        }
+        if (over) {
+            System.err.println("Allocation budget exceeded");
+            System.exit(1);
+        }
+    }
+}
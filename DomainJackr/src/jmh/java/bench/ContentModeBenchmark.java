@@ -0,0 +1,39 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same documents read as plain text and through the content-type modes (HTML tokenizer, JS
+ * literal lexer, JSON string tokens), on the scanner engine. Scored in ops/s like {@link ExtractionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentModeBenchmark {
+
+    @Param({ "HTML_PAGE", "EMAIL_PAGE", "MINIFIED_JS", "LARGE_BUNDLE", "JSON_API" })
+    public Corpus corpus;
+
+    @Param({ "text", "html", "js", "json" })
+    public String mode;
+
+    private String text;
+    private Hotpaths hot;
+
+    @Setup
+    public void setup() {
+        hot = Hotpaths.load();
+        text = corpus.text();
+    }
+
+    @Benchmark
+    public void extractBody(Blackhole bh) {
+        bh.consume(hot.extractBody(text, mode));
+    }
+}
@@ -0,0 +1,219 @@
+package bench;
+
+import java.util.Random;
+
+/**
+ * Synthetic but realistically shaped response text for the extraction benchmarks, one kind per
+ * constant (64 KB each, 1 MiB for LARGE_BUNDLE). Generated deterministically (fixed seed) so numbers
+ * are comparable between runs and between commits; every document is ASCII, so its length is also
+ * its size in bytes on the wire.
+ */
+public enum Corpus {
+    /** Bundler output: one long line, short identifiers, a handful of absolute and //-relative URLs. */
+    MINIFIED_JS {
+        @Override
+        void append(StringBuilder sb, Gen g) {
+            sb.append("!function(e,t){\"use strict\";var n=").append(g.quoted(g.url()))
+                    .append(",r={api:").append(g.quoted("https://api." + g.host() + "/v" + g.r.nextInt(4)))
+                    .append(",ws:").append(g.quoted("wss://rt." + g.host() + "/socket")).append("};");
+            for (int i = 0, k = 8 + g.r.nextInt(24); i < k; i++) {
+                sb.append("function ").append(g.ident()).append('(').append(g.ident()).append(',').append(g.ident())
+                        .append("){return ").append(g.ident()).append('.').append(g.ident()).append('(')
+                        .append(g.r.nextInt(1000)).append(")&&").append(g.ident()).append(".length>")
+                        .append(g.r.nextInt(64)).append('}');
+            }
+            if (g.r.nextInt(3) == 0) sb.append("o.src=\"//").append(g.host()).append("/pixel.gif?t=\"+Date.now();");
+            if (g.r.nextInt(4) == 0) sb.append("var re=/^[a-z]+:\\/\\//i,a=b?c:d;");
+            sb.append("}(window,document);");
+        }
+    },
+
+    /** Server-rendered page: head with assets, nav links, inline CSS url(), paragraphs of text. */
+    HTML_PAGE {
+        @Override
+        void append(StringBuilder sb, Gen g) {
+            sb.append("<!doctype html><html lang=\"en\"><head><meta charset=\"utf-8\">\n")
+                    .append("<link rel=\"stylesheet\" href=\"").append(g.url()).append("\">\n")
+                    .append("<script src=\"https://cdn.").append(g.host()).append("/js/app.").append(g.hex(8))
+                    .append(".js\" defer></script>\n")
+                    .append("<style>.hero{background:url('").append(g.url()).append("') no-repeat}")
+                    .append(".logo{background-image:url(/img/logo.svg)}</style></head>\n<body><nav><ul>\n");
+            for (int i = 0, k = 4 + g.r.nextInt(8); i < k; i++) {
+                String href = g.r.nextBoolean() ? "/" + g.word() + "/" + g.word() : g.url();
+                sb.append("<li><a class=\"nav-link\" href=\"").append(href).append("\">").append(g.word())
+                        .append("</a></li>\n");
+            }
+            sb.append("</ul></nav>\n<main>\n");
+            for (int i = 0, k = 3 + g.r.nextInt(6); i < k; i++) {
+                sb.append("<p>").append(g.sentence(30)).append("</p>\n");
+            }
+            sb.append("<img srcset=\"").append(g.url()).append(" 1x, ").append(g.url()).append(" 2x\" alt=\"\">\n")
+                    .append("</main></body></html>\n");
+        }
+    },
+
+    /** Response header blocks dominated by long Content-Security-Policy values. */
+    CSP_HEADERS {
+        @Override
+        void append(StringBuilder sb, Gen g) {
+            sb.append("HTTP/1.1 200 OK\r\nContent-Type: text/html; charset=utf-8\r\n")
+                    .append("Content-Security-Policy: default-src 'self'");
+            String[] directives = { "script-src", "style-src", "img-src", "connect-src", "font-src", "frame-src" };
+            for (String d : directives) {
+                sb.append("; ").append(d).append(" 'self'");
+                for (int i = 0, k = 2 + g.r.nextInt(8); i < k; i++) {
+                    sb.append(' ');
+                    switch (g.r.nextInt(3)) {
+                        case 0 -> sb.append("https://").append(g.host());
+                        case 1 -> sb.append("*.").append(g.host());
+                        default -> sb.append(g.host());
+                    }
+                }
+                if (g.r.nextBoolean()) sb.append(" 'unsafe-inline' 'nonce-").append(g.hex(16)).append('\'');
+            }
+            sb.append("; frame-ancestors 'none'\r\n")
+                    .append("Origin: https://").append(g.host()).append("\r\n")
+                    .append("Content-Location: ").append(g.host()).append("\r\n")
+                    .append("Strict-Transport-Security: max-age=31536000; includeSubDomains\r\n")
+                    .append("X-Request-Id: ").append(g.hex(32)).append("\r\n\r\n");
+        }
+    },
+
+    /** REST API page: array of records, most fields plain scalars, some *_url fields. */
+    JSON_API {
+        @Override
+        void append(StringBuilder sb, Gen g) {
+            sb.append(sb.isEmpty() ? "[" : ",").append("{\"id\":").append(g.r.nextInt(1_000_000))
+                    .append(",\"login\":").append(g.quoted(g.ident()))
+                    .append(",\"node_id\":").append(g.quoted(g.hex(20)))
+                    .append(",\"score\":").append(g.r.nextDouble())
+                    .append(",\"active\":").append(g.r.nextBoolean())
+                    .append(",\"created_at\":\"2024-0").append(1 + g.r.nextInt(9)).append("-1")
+                    .append(g.r.nextInt(10)).append("T12:34:56Z\"");
+            if (g.r.nextInt(3) != 0) {
+                sb.append(",\"avatar_url\":").append(g.quoted(g.url() + "?v=4"))
+                        .append(",\"html_url\":").append(g.quoted(g.url()));
+            }
+            sb.append(",\"bio\":").append(g.quoted(g.sentence(12))).append('}');
+        }
+
+        @Override
+        String finish(StringBuilder sb) {
+            return sb.append(']').toString();
+        }
+    },
+
+    /** Staff/contact directory: table rows of names with mailto links and plain addresses. */
+    EMAIL_PAGE {
+        @Override
+        void append(StringBuilder sb, Gen g) {
+            String first = g.word(), last = g.word(), host = g.host();
+            sb.append("<tr><td>").append(first).append(' ').append(last).append("</td><td><a href=\"mailto:")
+                    .append(first).append('.').append(last).append('@').append(host).append("\">")
+                    .append(first).append('.').append(last).append('@').append(host).append("</a></td><td>")
+                    .append(g.sentence(6)).append("</td><td>support+").append(g.word()).append('@')
+                    .append(g.host()).append("</td></tr>\n");
+        }
+    },
+
+    /** A 1 MiB vendor bundle: same shape as MINIFIED_JS, where delimiter skipping matters most. */
+    LARGE_BUNDLE(1 << 20) {
+        @Override
+        void append(StringBuilder sb, Gen g) {
+            MINIFIED_JS.append(sb, g);
+        }
+    };
+
+    /** Size documents are grown to unless a constant asks for more. */
+    static final int TARGET_BYTES = 64 * 1024;
+
+    private final int targetBytes;
+
+    private volatile String text;
+
+    Corpus() {
+        this(TARGET_BYTES);
+    }
+
+    Corpus(int targetBytes) {
+        this.targetBytes = targetBytes;
+    }
+
+    /** The generated document (built once). */
+    public String text() {
+        String t = text;
+        if (t == null) {
+            StringBuilder sb = new StringBuilder(targetBytes + 4096);
+            Gen g = new Gen(new Random(0x5eed + ordinal()));
+            while (sb.length() < targetBytes) append(sb, g);
+            text = t = finish(sb);
+        }
+        return t;
+    }
+
+    public int bytes() {
+        return text().length();
+    }
+
+    abstract void append(StringBuilder sb, Gen g);
+
+    String finish(StringBuilder sb) {
+        return sb.toString();
+    }
+
+    /** Word, host and URL generator over small fixed vocabularies. */
+    static final class Gen {
+        private static final String[] WORDS = {
+                "alpha", "beacon", "cobalt", "delta", "ember", "falcon", "granite", "harbor", "indigo", "juniper",
+                "kepler", "lumen", "meadow", "nimbus", "orbit", "prairie", "quartz", "raven", "summit", "tundra",
+                "umber", "vertex", "willow", "xenon", "yonder", "zephyr"
+        };
+        private static final String[] SUFFIXES = {
+                "com", "com", "com", "net", "org", "io", "co.uk", "com.au", "de", "dev", "github.io",
+                "s3.amazonaws.com", "herokuapp.com", "co.jp"
+        };
+        private static final String[] SUBDOMAINS = { "", "", "www.", "cdn.", "static.", "assets.", "api." };
+
+        final Random r;
+
+        Gen(Random r) {
+            this.r = r;
+        }
+
+        String word() {
+            return WORDS[r.nextInt(WORDS.length)];
+        }
+
+        String ident() {
+            return r.nextInt(3) == 0 ? word() : String.valueOf((char) ('a' + r.nextInt(26)));
+        }
+
+        String host() {
+            String sld = r.nextBoolean() ? word() : word() + "-" + word();
+            return SUBDOMAINS[r.nextInt(SUBDOMAINS.length)] + sld + "." + SUFFIXES[r.nextInt(SUFFIXES.length)];
+        }
+
+        String url() {
+            return "https://" + host() + "/" + word() + "/" + hex(6) + (r.nextBoolean() ? ".png" : ".css");
+        }
+
+        String hex(int n) {
+            StringBuilder sb = new StringBuilder(n);
+            for (int i = 0; i < n; i++) sb.append(Character.forDigit(r.nextInt(16), 16));
+            return sb.toString();
+        }
+
+        String sentence(int words) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0, k = 1 + r.nextInt(words); i < k; i++) {
+                if (i > 0) sb.append(' ');
+                sb.append(word());
+            }
+            return sb.append('.').toString();
+        }
+
+        String quoted(String s) {
+            return "\"" + s + "\"";
+        }
+    }
+}
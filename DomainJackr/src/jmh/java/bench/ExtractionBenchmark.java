@@ -0,0 +1,41 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DomainExtractor.extractDomains over each {@link Corpus} kind, for every engine. Scored in ops/s;
+ * {@link ThroughputReport} turns that into MB/s and adds B/op from the GC profiler. "vector" only
+ * differs from "scanner" when the fork has {@code --add-modules jdk.incubator.vector} (the Gradle
+ * tasks pass it).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    @Param
+    public Corpus corpus;
+
+    @Param({ "scanner", "vector", "regex" })
+    public String engine;
+
+    private String text;
+    private Hotpaths hot;
+
+    @Setup
+    public void setup() {
+        hot = Hotpaths.load();
+        text = corpus.text();
+    }
+
+    @Benchmark
+    public void extractDomains(Blackhole bh) {
+        bh.consume(hot.extractDomains(text, engine));
+    }
+}
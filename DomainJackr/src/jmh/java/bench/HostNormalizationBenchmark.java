@@ -0,0 +1,55 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DomainExtractor.hostFromAuthority over captures the way the scanner hands them over (ranges into
+ * a larger text). Run with {@code -prof gc}; {@link AllocationBudget} enforces the B/op ceiling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HostNormalizationBenchmark {
+
+    static final String[] AUTHORITIES = {
+            "www.example.com", "cdn.jsdelivr.net", "user:pass@login.example.org:8443", "static.example.co.uk",
+            "api.example.com:443", "127.0.0.1:8080", "[2001:db8::1]:443", "Fonts.GoogleAPIs.com",
+            "assets.example.com?v=3", "*.example.net", "bad..dots..example.com.", "10.0.0.12",
+            "xn--bcher-kva.example", "a.b.c.d.example.io", "mail.example.com:25", "localhost"
+    };
+
+    static final int OPS = 16;
+
+    private String text;
+    private int[] starts;
+    private int[] ends;
+    private Hotpaths hot;
+
+    @Setup
+    public void setup() {
+        hot = Hotpaths.load();
+        StringBuilder sb = new StringBuilder();
+        starts = new int[AUTHORITIES.length];
+        ends = new int[AUTHORITIES.length];
+        for (int i = 0; i < AUTHORITIES.length; i++) {
+            sb.append("<a href=\"https://");
+            starts[i] = sb.length();
+            sb.append(AUTHORITIES[i]);
+            ends[i] = sb.length();
+            sb.append("/path\">x</a>\n");
+        }
+        text = sb.toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void hostFromAuthority(Blackhole bh) {
+        for (int i = 0; i < OPS; i++) bh.consume(hot.hostFromAuthority(text, starts[i], ends[i]));
+    }
+}
@@ -0,0 +1,40 @@
+package bench;
+
+import java.util.List;
+
+/**
+ * The extension's classes live in the default package, which JMH benchmarks (and any named package)
+ * cannot import. {@code JmhHotpaths} sits in the default package next to them and exposes the hot
+ * paths through this interface.
+ */
+public interface Hotpaths {
+
+    /** httpclient5 {@code PublicSuffixMatcher.getDomainRoot}. */
+    String matcherRoot(String host);
+
+    /** {@code SuffixTrie.rootStart} over the whole host. */
+    int trieRootStart(String host);
+
+    /** {@code DomainExtractor.hostFromAuthority} over s[from, to). */
+    String hostFromAuthority(CharSequence s, int from, int to);
+
+    /** {@code DomainExtractor.extractDomains} on one shared extractor per engine ("scanner", "vector", "regex"). */
+    List<String> extractDomains(String input, String engine);
+
+    /** A response body read in a content mode ("text", "html", "js", "json"), on the shared scanner extractor. */
+    List<String> extractBody(String body, String mode);
+
+    /** {@code DomainExtractor.registrableDomain} (the addIfRegistrable path), with or without the host cache. */
+    String registrableDomain(String host, boolean cached);
+
+    /** {@code ResponseLoggerPassiveCheck.isProbablyTextual} for a Content-Type value. */
+    boolean isProbablyTextual(String contentType);
+
+    static Hotpaths load() {
+        try {
+            return (Hotpaths) Class.forName("JmhHotpaths").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("JmhHotpaths not on the jmh classpath", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The addIfRegistrable step: normalized host to eTLD+1 (IDN check, dot cleanup, PSL reduction),
+ * straight through and via the host cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistrableDomainBenchmark {
+
+    // What hostFromAuthority hands over: lowercase, no port; a few IDN and unregistrable ones mixed in.
+    static final String[] HOSTS = {
+            "www.example.com", "cdn.jsdelivr.net", "static.ads.example.co.uk", "someone.github.io",
+            "foo.s3.amazonaws.com", "api.staging.internal.example.io", "bücher.example.de", "localhost",
+            "fonts.googleapis.com", "x.y.z.kawasaki.jp", "shop.example.nonexistenttld", "tracker.example.com.br",
+            "co.uk", "münchen.de", "a.b.c.d.e.f.g.example.org", "assets.example.herokuapp.com"
+    };
+
+    private Hotpaths hot;
+
+    @Setup
+    public void setup() {
+        hot = Hotpaths.load();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(16)
+    public void uncached(Blackhole bh) {
+        for (String h : HOSTS) bh.consume(hot.registrableDomain(h, false));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(16)
+    public void cached(Blackhole bh) {
+        for (String h : HOSTS) bh.consume(hot.registrableDomain(h, true));
+    }
+}
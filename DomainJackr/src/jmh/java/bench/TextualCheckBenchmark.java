@@ -0,0 +1,36 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** ResponseLoggerPassiveCheck.isProbablyTextual, run once per response before anything else. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextualCheckBenchmark {
+
+    static final String[] CONTENT_TYPES = {
+            "text/html; charset=utf-8", "application/json", "image/png", "application/javascript; charset=UTF-8",
+            "Application/Manifest+JSON", "font/woff2", "text/css", "application/octet-stream",
+            null, "image/svg+xml", "application/x-www-form-urlencoded", "video/mp4",
+            " text/plain ", "application/vnd.api+json; charset=utf-8", "application/pdf", "image/webp"
+    };
+
+    private Hotpaths hot;
+
+    @Setup
+    public void setup() {
+        hot = Hotpaths.load();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(16)
+    public void isProbablyTextual(Blackhole bh) {
+        for (String ct : CONTENT_TYPES) bh.consume(hot.isProbablyTextual(ct));
+    }
+}
@@ -0,0 +1,51 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+
+/**
+ * Hot-path report ({@code ./gradlew benchReport}): runs every benchmark in this package under the GC
+ * profiler and prints one line per result with MB/s (corpus benchmarks) and bytes allocated per op.
+ * Pass a regex as the first argument to run a subset.
+ */
+public final class ThroughputReport {
+
+    private ThroughputReport() {}
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "bench\\..*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(opt).run();
+
+        System.out.printf("%n%-60s %14s %10s %12s%n", "Benchmark", "Score", "MB/s", "B/op");
+        for (RunResult r : results) {
+            String name = r.getParams().getBenchmark().replace("bench.", "");
+            String corpus = r.getParams().getParam("corpus");
+            String engine = r.getParams().getParam("engine");
+            String mode = r.getParams().getParam("mode");
+            String variant = engine != null ? engine : mode;
+            if (corpus != null) name += " [" + corpus + (variant != null ? ", " + variant : "") + "]";
+
+            Result<?> primary = r.getPrimaryResult();
+            String score = String.format("%.1f %s", primary.getScore(), primary.getScoreUnit());
+
+            // Corpus benchmarks run in ops/s over one document, so MB/s is ops/s x document size.
+            String mbps = corpus == null ? "-"
+                    : String.format("%.1f", primary.getScore() * Corpus.valueOf(corpus).bytes() / 1e6);
+
+            Result<?> alloc = r.getSecondaryResults().get("gc.alloc.rate.norm");
+            String perOp = alloc == null ? "-" : String.format("%.1f", alloc.getScore());
+
+            System.out.printf("%-60s %14s %10s %12s%n", name, score, mbps, perOp);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+// BodyCache.java
+// Bounded, thread-safe content fingerprint -> extraction result cache (identical bodies are extracted once).
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Same lock-striped LRU layout as {@link HostCache}, keyed by {@link Fingerprint} (of a whole body, or
+ * of one chunk when used by {@link ChunkCache}). Values must be immutable; an empty domain list is a
+ * valid (and common) entry. Callers {@link #lookup} first and {@link #put} the result of a miss
+ * themselves (skipping results cut short by a deadline); nothing is held locked while they extract, so
+ * two threads racing on the same new body may both extract it once.
+ */
+final class BodyCache<V> {
+    static final int DEFAULT_SIZE = 4_096;
+    private static final int STRIPES = 16;
+
+    private final List<Stripe> stripes = new ArrayList<>(STRIPES);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bytesSkipped = new LongAdder();
+
+    BodyCache(int maxEntries) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be > 0");
+        int perStripe = Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) stripes.add(new Stripe(perStripe));
+    }
+
+    /** Size from -Ddomainjackr.bodyCacheSize (default 4096); null when set to 0 (cache disabled). */
+    static <V> BodyCache<V> fromSystemProperty() {
+        int size = Integer.getInteger("domainjackr.bodyCacheSize", DEFAULT_SIZE);
+        return size > 0 ? new BodyCache<>(size) : null;
+    }
+
+    /** Cached result for {@code key}, or null (counted as a miss; the caller extracts and may {@link #put}). */
+    V lookup(Fingerprint key) {
+        Stripe s = stripeFor(key);
+        V v;
+        synchronized (s) {
+            v = s.get(key);
+        }
+        if (v != null) {
+            hits.increment();
+            bytesSkipped.add(key.length());
+        } else {
+            misses.increment();
+        }
+        return v;
+    }
+
+    /** Cache {@code v} for {@code key}; only complete results belong here. */
+    void put(Fingerprint key, V v) {
+        Stripe s = stripeFor(key);
+        synchronized (s) {
+            s.put(key, v);
+        }
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    /** Bytes that were not extracted because a cached result was reused. */
+    long bytesSkipped() {
+        return bytesSkipped.sum();
+    }
+
+    int size() {
+        int n = 0;
+        for (Stripe s : stripes) {
+            synchronized (s) {
+                n += s.size();
+            }
+        }
+        return n;
+    }
+
+    /** Publish the counters (and the hit ratio in percent) under {@code prefix}. */
+    void exportTo(Metrics metrics, String prefix) {
+        metrics.gauge(prefix + ".hits", this::hits);
+        metrics.gauge(prefix + ".misses", this::misses);
+        metrics.gauge(prefix + ".hitRatioPct", () -> Metrics.percent(hits(), hits() + misses()));
+        metrics.gauge(prefix + ".bytesSkipped", this::bytesSkipped);
+        metrics.gauge(prefix + ".evictions", this::evictions);
+        metrics.gauge(prefix + ".size", this::size);
+    }
+
+    private Stripe stripeFor(Fingerprint key) {
+        return stripes.get((int) (key.lo() >>> 60) & (STRIPES - 1));
+    }
+
+    private final class Stripe extends LinkedHashMap<Fingerprint, V> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(Math.min(capacity, 1024) * 4 / 3 + 1, 0.75f, true); // access order => LRU
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Fingerprint, V> eldest) {
+            if (size() <= capacity) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+// ByteText.java
+// Read-only CharSequence view over a Montoya ByteArray (one byte = one ISO-8859-1 char, as Burp decodes bodies).
+
+import burp.api.montoya.core.ByteArray;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Lets the extractor scan response bytes in place. Nothing is decoded until {@link #toString()},
+ * which is only called on the short slices that actually matched.
+ */
+final class ByteText implements CharSequence {
+    private final ByteArray bytes;
+    private final int offset;
+    private final int length;
+
+    ByteText(ByteArray bytes) {
+        this(bytes, 0, bytes.length());
+    }
+
+    private ByteText(ByteArray bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes.getByte(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length);
+        return new ByteText(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        byte[] b = new byte[length];
+        for (int i = 0; i < length; i++) b[i] = bytes.getByte(offset + i);
+        return new String(b, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,119 @@
+// ChunkCache.java
+// Content-defined chunking in front of DomainExtractor: only chunks not seen before are scanned.
+
+import burp.api.montoya.core.ByteArray;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Splits a body into chunks whose boundaries depend only on the surrounding bytes (gear rolling hash
+ * over the last 64 bytes), so two renderings of the same template share most chunks even when the
+ * dynamic parts differ in length. Each chunk's domains are cached by {@link Fingerprint}; only new
+ * chunks reach the extractor.
+ *
+ * <p>A boundary is placed right after the first '\n' following a hash anchor. No URL, host, email or
+ * header capture crosses a line break, and a chunk start looks exactly like a line start to the
+ * recognizers, so per-chunk results equal the whole-body result. The exceptions are a CSS
+ * {@code url(} or a CSP value list broken over several lines, which is cut at the boundary. HTML/JS
+ * tokenizer state is carried from chunk to chunk, so a string or template literal may span a boundary.
+ */
+final class ChunkCache {
+    static final int DEFAULT_SIZE = 16_384;
+
+    // Anchors fire on average every 2 KiB; nothing is cut before MIN_CHUNK bytes.
+    private static final long ANCHOR_MASK = (1L << 11) - 1;
+    static final int MIN_CHUNK = 512;
+    // Below this a body is one chunk anyway: extract it directly.
+    static final int MIN_BODY = 4 * MIN_CHUNK;
+    // The scan deadline is checked after at least this many bytes of chunks.
+    private static final int DEADLINE_STRIDE = 64 * 1024;
+
+    private static final long[] GEAR = new long[256];
+
+    static {
+        SplittableRandom r = new SplittableRandom(0x6a09e667f3bcc908L); // fixed: boundaries must be stable
+        for (int i = 0; i < GEAR.length; i++) GEAR[i] = r.nextLong();
+    }
+
+    private final DomainExtractor extractor;
+    private final BodyCache<ChunkResult> chunks;
+
+    /** A chunk's domains, and the tokenizer state the next chunk starts in (HTML mode). */
+    private record ChunkResult(List<String> domains, int endState) {}
+
+    ChunkCache(DomainExtractor extractor, int maxEntries) {
+        this.extractor = Objects.requireNonNull(extractor, "extractor");
+        this.chunks = new BodyCache<>(maxEntries);
+    }
+
+    /** Size from -Ddomainjackr.chunkCacheSize (default 16384); null when set to 0 (chunking disabled). */
+    static ChunkCache fromSystemProperty(DomainExtractor extractor) {
+        int size = Integer.getInteger("domainjackr.chunkCacheSize", DEFAULT_SIZE);
+        return size > 0 ? new ChunkCache(extractor, size) : null;
+    }
+
+    /**
+     * Domains in {@code body} read in {@code mode}, in discovery order, extracting only chunks that are
+     * not cached. In HTML and JS mode a chunk is keyed by its content and the tokenizer state it
+     * starts in; JSON bodies are extracted whole (the parser cannot resume mid-document).
+     */
+    List<String> extract(ByteArray body, DomainExtractor.ContentMode mode) {
+        return extract(body, mode, ScanBudget.Deadline.NONE);
+    }
+
+    /** Same, stopping at the first chunk boundary after {@code deadline} has passed. */
+    List<String> extract(ByteArray body, DomainExtractor.ContentMode mode, ScanBudget.Deadline deadline) {
+        final int n = body.length();
+        if (n < MIN_BODY || !mode.resumable()) return extractor.extractDomains(body, mode, null, deadline);
+
+        ByteText text = new ByteText(body);
+        Set<String> out = new LinkedHashSet<>();
+        int start = 0;
+        int state = DomainExtractor.INITIAL_STATE;
+        for (int checked = 0; start < n; ) {
+            if (start - checked >= DEADLINE_STRIDE) {
+                if (deadline.expired()) break;
+                checked = start;
+            }
+            int end = nextBoundary(body, start, n);
+            long tag = (long) mode.ordinal() << 32 | state;
+            Fingerprint key = Fingerprint.of(body, start, end).tagged(tag);
+            ChunkResult r = chunks.lookup(key);
+            if (r == null) {
+                Set<String> found = new LinkedHashSet<>();
+                int endState = extractor.extractInto(text.subSequence(start, end), mode, state, found);
+                r = new ChunkResult(List.copyOf(found), endState);
+                if (!deadline.hit()) chunks.put(key, r); // only whole-chunk results are shared
+            }
+            out.addAll(r.domains());
+            state = r.endState();
+            start = end;
+        }
+        return List.copyOf(out);
+    }
+
+    /** End (exclusive) of the chunk starting at {@code start}: just past a '\n' after an anchor, or n. */
+    static int nextBoundary(ByteArray body, int start, int n) {
+        long h = 0;
+        boolean anchored = false;
+        for (int i = start; i < n; i++) {
+            byte b = body.getByte(i);
+            if (anchored) {
+                if (b == '\n') return i + 1;
+                continue;
+            }
+            h = (h << 1) + GEAR[b & 0xFF];
+            if (i - start >= MIN_CHUNK && (h & ANCHOR_MASK) == 0) anchored = true;
+        }
+        return n;
+    }
+
+    /** Publish the per-chunk cache counters under {@code prefix}. */
+    void exportTo(Metrics metrics, String prefix) {
+        chunks.exportTo(metrics, prefix);
+    }
+}
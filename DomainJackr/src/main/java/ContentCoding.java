@@ -0,0 +1,151 @@
+// ContentCoding.java
+// Streaming gzip/deflate decoding of response bodies that are still compressed (Content-Encoding), read as text.
+
+import burp.api.montoya.core.ByteArray;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Burp usually hands over bodies already unpacked, but not always (proxy option off, responses from
+ * other tools, extensions). {@link #reader} inflates such a body as it is read, in small buffers, so
+ * neither the compressed nor the inflated body is ever copied whole; bytes come out as ISO-8859-1
+ * chars, like {@link ByteText}. Brotli and zstd have no decoder in the JDK: those bodies are reported as
+ * {@link #isUnreadable unreadable} instead of being scanned as if their bytes were text.
+ */
+final class ContentCoding {
+    /** Inflated bytes read per body at most; a few KB of gzip can expand to gigabytes. */
+    static final long MAX_INFLATED = 64L << 20;
+
+    private static final int BUFFER = 8_192;
+
+    private ContentCoding() {}
+
+    /**
+     * Reader over the inflated body, or null when there is nothing to inflate: no (or an identity)
+     * Content-Encoding, a coding other than gzip/deflate, or bytes that do not start like a gzip / zlib
+     * stream (already unpacked, whatever the header says).
+     */
+    static Reader reader(ByteArray body, String contentEncoding) throws IOException {
+        if (!isInflatable(body, contentEncoding)) return null;
+        InputStream in = coding(contentEncoding).equals("deflate")
+                ? new InflaterInputStream(new ByteArrayStream(body))
+                : new GZIPInputStream(new ByteArrayStream(body), BUFFER);
+        return new InputStreamReader(new Limited(in, MAX_INFLATED), StandardCharsets.ISO_8859_1);
+    }
+
+    /** Reader over the body's text: inflated when {@link #reader} would, else its bytes as they are. */
+    static Reader text(ByteArray body, String contentEncoding) throws IOException {
+        Reader inflated = reader(body, contentEncoding);
+        return inflated != null ? inflated
+                : new InputStreamReader(new ByteArrayStream(body), StandardCharsets.ISO_8859_1);
+    }
+
+    /** Whether {@link #reader} would inflate the body, or its coding makes it {@link #isUnreadable unreadable}. */
+    static boolean isCompressed(ByteArray body, String contentEncoding) {
+        return isUnreadable(contentEncoding) || isInflatable(body, contentEncoding);
+    }
+
+    /**
+     * How the body's bytes are read: 0 as they are, 1 inflated, 2 not at all (a coding we cannot read).
+     * Results for the same bytes differ by it, so it is part of the body cache key.
+     */
+    static int readAs(ByteArray body, String contentEncoding) {
+        if (isUnreadable(contentEncoding)) return 2;
+        return isInflatable(body, contentEncoding) ? 1 : 0;
+    }
+
+    /** Whether the body is compressed with a coding we cannot read (br, zstd, compress). */
+    static boolean isUnreadable(String contentEncoding) {
+        return switch (coding(contentEncoding)) {
+            case "br", "zstd", "compress", "x-compress" -> true;
+            default -> false;
+        };
+    }
+
+    // ---- helpers ----
+
+    private static boolean isInflatable(ByteArray body, String contentEncoding) {
+        if (body == null || body.length() < 2) return false;
+        return switch (coding(contentEncoding)) {
+            case "gzip", "x-gzip" -> isGzip(body);
+            case "deflate" -> isZlib(body);
+            default -> false;
+        };
+    }
+
+    /** The (last) coding named by a Content-Encoding value, lowercase; "" for none. */
+    private static String coding(String contentEncoding) {
+        if (contentEncoding == null) return "";
+        String v = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        int comma = v.lastIndexOf(',');
+        return comma == -1 ? v : v.substring(comma + 1).trim(); // applied last, so undone first
+    }
+
+    private static boolean isGzip(ByteArray body) {
+        return (body.getByte(0) & 0xFF) == 0x1F && (body.getByte(1) & 0xFF) == 0x8B;
+    }
+
+    /** RFC 1950 header: compression method 8 and a header checksum that divides by 31. */
+    private static boolean isZlib(ByteArray body) {
+        int cmf = body.getByte(0) & 0xFF, flg = body.getByte(1) & 0xFF;
+        return (cmf & 0x0F) == 8 && (cmf << 8 | flg) % 31 == 0;
+    }
+
+    /** InputStream over a ByteArray, read in place. */
+    private static final class ByteArrayStream extends InputStream {
+        private final ByteArray bytes;
+        private int pos;
+
+        ByteArrayStream(ByteArray bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return pos < bytes.length() ? bytes.getByte(pos++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) {
+            int n = Math.min(len, bytes.length() - pos);
+            if (n <= 0) return len == 0 ? 0 : -1;
+            for (int k = 0; k < n; k++) buf[off + k] = bytes.getByte(pos + k);
+            pos += n;
+            return n;
+        }
+    }
+
+    /** Ends (quietly) after {@code limit} bytes; what was read up to there is still scanned. */
+    private static final class Limited extends FilterInputStream {
+        private long remaining;
+
+        Limited(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = super.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = super.read(buf, off, (int) Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+// ContextScanner.java
+// Single-pass recognizer for the six DomainExtractor contexts (URL, //host, email, header, CSS url(), CSP).
+
+/**
+ * Walks the input once and reports the same captures the six DomainExtractor regexes would,
+ * including their leftmost / non-overlapping match semantics (each context resumes after its
+ * previous match, exactly like {@code Matcher.find()}).
+ */
+final class ContextScanner {
+
+    enum Context { URL, SCHEME_RELATIVE, EMAIL, HEADER, CSS_URL, CSP }
+
+    /** Every context; see {@link #bit(Context)}. */
+    static final int ALL = (1 << Context.values().length) - 1;
+
+    /**
+     * Prefilter-only bit (not a context): the input holds a percent-escaped or entity-encoded ':', '/',
+     * '@' or '.', so a decoded view of it may hold hosts the plain scan cannot see.
+     */
+    static final int ENCODED = 1 << Context.values().length;
+
+    /** Receives each capture as a range into the scanned text. */
+    interface Sink {
+        void accept(Context context, CharSequence text, int start, int end);
+    }
+
+    /**
+     * Cursor over the chars the recognizers and the prefilter act on (':', '/', '@', '(', '-', '%', '&',
+     * line terminators), so the runs between them are skipped. It may also stop on other chars, but never
+     * skips a delimiter. Not thread-safe: keep one per thread and {@link #reset} it for each input.
+     */
+    abstract static class Delimiters {
+
+        /** Start over on {@code s}. */
+        abstract Delimiters reset(CharSequence s);
+
+        /** First index >= {@code from} that may hold a delimiter, or the length of the input. */
+        abstract int next(int from);
+
+        /** Plain char-by-char cursor. */
+        static Delimiters scalar() {
+            return new Scalar();
+        }
+
+        /**
+         * SIMD cursor ({@code VectorDelimiters}) when {@code jdk.incubator.vector} is present and the
+         * CPU has at least 128-bit vectors; otherwise the scalar one.
+         */
+        static Delimiters vector() {
+            if (VectorSupport.AVAILABLE) {
+                try {
+                    return (Delimiters) Class.forName("VectorDelimiters").getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | LinkageError ignored) {
+                    // fall through
+                }
+            }
+            return scalar();
+        }
+
+        /** Whether {@link #vector()} returns the SIMD cursor. */
+        static boolean vectorAvailable() {
+            return VectorSupport.AVAILABLE;
+        }
+
+        private static final class Scalar extends Delimiters {
+            private CharSequence s;
+
+            @Override
+            Delimiters reset(CharSequence s) {
+                this.s = s;
+                return this;
+            }
+
+            @Override
+            int next(int from) {
+                final int n = s.length();
+                while (from < n && !isDelimiter(s.charAt(from))) from++;
+                return from;
+            }
+        }
+
+        private static final class VectorSupport {
+            static final boolean AVAILABLE = probe();
+
+            private static boolean probe() {
+                if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return false;
+                try {
+                    Class.forName("VectorDelimiters").getDeclaredConstructor().newInstance();
+                    return true;
+                } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                    return false; // e.g. vectors too narrow to pay off (constructor refuses)
+                }
+            }
+        }
+    }
+
+    // Must stay in sync with DomainExtractor.HEADER_HOST / CSP_DIRECTIVE.
+    private static final String[] HEADER_NAMES = { "host", "origin", "referer", "content-location" };
+    private static final String[] CSP_NAMES = {
+            "default-src", "connect-src", "script-src", "img-src", "media-src", "font-src", "style-src",
+            "frame-src", "child-src", "form-action", "frame-ancestors", "manifest-src"
+    };
+
+    private ContextScanner() {}
+
+    static int bit(Context context) {
+        return 1 << context.ordinal();
+    }
+
+    /**
+     * Prefilter: one cheap pass for the literals every context needs ("//", '@', "url(", "-src" /
+     * "-action" / "-ancestors", a header name at a line start). Returns the bits of the contexts that
+     * can possibly match (never fewer than would), 0 when none can; stops early once all are possible.
+     */
+    static int triggers(CharSequence s) {
+        return triggers(s, Delimiters.scalar());
+    }
+
+    /** {@link #triggers(CharSequence)}, jumping from delimiter to delimiter with {@code d}. */
+    static int triggers(CharSequence s, Delimiters d) {
+        return triggers(s, ALL, d);
+    }
+
+    /**
+     * Same, but only for the contexts in {@code wanted} (header names are not even looked for otherwise);
+     * {@code wanted} may include {@link #ENCODED}.
+     */
+    static int triggers(CharSequence s, int wanted, Delimiters d) {
+        final int n = s.length();
+        final boolean headers = (wanted & bit(Context.HEADER)) != 0;
+        final boolean encoded = (wanted & ENCODED) != 0;
+        d.reset(s);
+        int mask = headers && n > 0 && isHeaderName(s, 0) ? bit(Context.HEADER) : 0;
+        for (int i = d.next(0); i < n && (mask & wanted) != wanted; i = d.next(i + 1)) {
+            switch (s.charAt(i)) {
+                case '/' -> {
+                    if (i + 1 < n && s.charAt(i + 1) == '/') mask |= bit(Context.URL) | bit(Context.SCHEME_RELATIVE);
+                }
+                case '@' -> mask |= bit(Context.EMAIL);
+                case '(' -> {
+                    if (regionMatchesIgnoreCase(s, i - 3, "url")) mask |= bit(Context.CSS_URL);
+                }
+                case '-' -> {
+                    if (regionMatchesIgnoreCase(s, i + 1, "src") || regionMatchesIgnoreCase(s, i + 1, "action")
+                            || regionMatchesIgnoreCase(s, i + 1, "ancestors")) mask |= bit(Context.CSP);
+                }
+                case '\n', '\r', '\u0085', '\u2028', '\u2029' -> {
+                    if (headers && isHeaderName(s, i + 1)) mask |= bit(Context.HEADER);
+                }
+                case '%', '&' -> {
+                    if (encoded && isEncodedDelimiter(DecodedText.escapedCharAt(s, i))) mask |= ENCODED;
+                }
+                default -> { }
+            }
+        }
+        return mask & wanted;
+    }
+
+    static void scan(CharSequence s, Sink sink) {
+        scan(s, ALL, Delimiters.scalar(), sink);
+    }
+
+    /**
+     * Like {@link #scan(CharSequence, Sink)}, but only looks for the contexts in {@code contexts}. Unless
+     * CSP is among them (its directive names start on any letter), runs without a delimiter are skipped
+     * with {@code d}.
+     */
+    static void scan(CharSequence s, int contexts, Delimiters d, Sink sink) {
+        final int n = s.length();
+        d.reset(s);
+        final boolean url = (contexts & bit(Context.URL)) != 0;
+        final boolean schemeRelative = (contexts & bit(Context.SCHEME_RELATIVE)) != 0;
+        final boolean email = (contexts & bit(Context.EMAIL)) != 0;
+        final boolean headers = (contexts & bit(Context.HEADER)) != 0;
+        final boolean css = (contexts & bit(Context.CSS_URL)) != 0;
+        final boolean csp = (contexts & bit(Context.CSP)) != 0;
+
+        // Per-context resume positions (where the regex's next find() would start).
+        int urlNext = 0, slNext = 0, emailNext = 0, headerNext = 0, cssNext = 0, cspNext = 0;
+
+        // CSP value list currently being tokenized (runs until ';' or end of input).
+        boolean cspOpen = false;
+        int cspFrom = 0, cspTok = -1;
+
+        if (headers && n > 0) headerNext = header(s, 0, n, sink, headerNext);
+
+        for (int i = 0; i < n; i++) {
+            if (!csp) {
+                i = d.next(i);
+                if (i >= n) break;
+            }
+            char c = s.charAt(i);
+
+            if (cspOpen && i >= cspFrom) {
+                if (c == ';') {
+                    if (cspTok != -1) sink.accept(Context.CSP, s, cspTok, i);
+                    cspTok = -1;
+                    cspOpen = false;
+                    cspNext = i;
+                } else if (isSpace(c)) {
+                    if (cspTok != -1) sink.accept(Context.CSP, s, cspTok, i);
+                    cspTok = -1;
+                } else if (cspTok == -1) {
+                    cspTok = i;
+                }
+            }
+
+            switch (c) {
+                case '\n', '\r', '\u0085', '\u2028', '\u2029' -> {
+                    // MULTILINE '^': after any terminator, but not inside "\r\n" and not at end of input
+                    int p = i + 1;
+                    if (headers && p < n && p >= headerNext && !(c == '\r' && s.charAt(p) == '\n')) {
+                        headerNext = header(s, p, n, sink, headerNext);
+                    }
+                }
+                case ':' -> {
+                    if (url && i + 2 < n && s.charAt(i + 1) == '/' && s.charAt(i + 2) == '/') {
+                        int start = schemeStart(s, i);
+                        if (start != -1 && start >= urlNext && (start == 0 || !isWord(s.charAt(start - 1)))) {
+                            int end = runOfUrlChars(s, i + 3, n);
+                            if (end > i + 3) {
+                                sink.accept(Context.URL, s, i + 3, end);
+                                urlNext = end;
+                            }
+                        }
+                    }
+                }
+                case '/' -> {
+                    if (schemeRelative && i >= slNext && i + 1 < n && s.charAt(i + 1) == '/'
+                            && (i == 0 || !isWord(s.charAt(i - 1)))) {
+                        int end = runOfUrlChars(s, i + 2, n);
+                        if (end > i + 2) {
+                            sink.accept(Context.SCHEME_RELATIVE, s, i + 2, end);
+                            slNext = end;
+                        }
+                    }
+                }
+                case '@' -> {
+                    if (email && i - 1 >= emailNext && i > 0 && isEmailLocal(s.charAt(i - 1))) {
+                        int end = emailDomainEnd(s, i + 1, n);
+                        if (end != -1) {
+                            sink.accept(Context.EMAIL, s, i + 1, end);
+                            emailNext = end;
+                        }
+                    }
+                }
+                case '(' -> {
+                    if (css && i - 3 >= cssNext && regionMatchesIgnoreCase(s, i - 3, "url")) {
+                        cssNext = cssUrl(s, i + 1, n, sink, cssNext);
+                    }
+                }
+                default -> {
+                    if (csp && !cspOpen && i >= cspNext && isCspInitial(c) && (i == 0 || !isWord(s.charAt(i - 1)))) {
+                        int g = cspValueStart(s, i, n);
+                        if (g >= 0) {
+                            // The loop tokenizes the value as it passes over it.
+                            cspOpen = true;
+                            cspFrom = g;
+                            cspTok = -1;
+                            cspNext = Integer.MAX_VALUE;
+                            if (g < n && s.charAt(g) == ';') {
+                                // "name  ;" still matches (one space becomes the value), but yields no tokens.
+                                cspOpen = false;
+                                cspNext = g;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        if (cspOpen && cspTok != -1) sink.accept(Context.CSP, s, cspTok, n);
+    }
+
+    // ---- per-context recognizers ----
+
+    /** Header line at p: name \s* ':' \s* value. Returns the new resume position. */
+    private static int header(CharSequence s, int p, int n, Sink sink, int next) {
+        for (String name : HEADER_NAMES) {
+            if (!regionMatchesIgnoreCase(s, p, name)) continue;
+            int q = skipSpaces(s, p + name.length(), n);
+            if (q >= n || s.charAt(q) != ':') return next;
+            q = skipSpaces(s, q + 1, n);
+            int end = q;
+            while (end < n) {
+                char c = s.charAt(end);
+                if (isSpace(c) || c == ':' || c == '/') break;
+                end++;
+            }
+            if (end == q) return next;
+            sink.accept(Context.HEADER, s, q, end);
+            return end;
+        }
+        return next;
+    }
+
+    /** Start of the scheme ending right before the ':' at i, or -1. */
+    private static int schemeStart(CharSequence s, int i) {
+        if (i >= 5 && regionMatchesIgnoreCase(s, i - 5, "https")) return i - 5;
+        if (i >= 4 && regionMatchesIgnoreCase(s, i - 4, "http")) return i - 4;
+        if (i >= 3 && regionMatchesIgnoreCase(s, i - 3, "wss")) return i - 3;
+        if (i >= 3 && regionMatchesIgnoreCase(s, i - 3, "ftp")) return i - 3;
+        if (i >= 2 && regionMatchesIgnoreCase(s, i - 2, "ws")) return i - 2;
+        return -1;
+    }
+
+    /** [^/\s"'<>]+ */
+    private static int runOfUrlChars(CharSequence s, int p, int n) {
+        while (p < n) {
+            char c = s.charAt(p);
+            if (c == '/' || c == '"' || c == '\'' || c == '<' || c == '>' || isSpace(c)) break;
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Domain part of EMAIL_DOMAIN starting at p: the longest prefix of the [\p{L}0-9.-] run
+     * that ends in '.' + 2..63 letters. Returns its end, or -1.
+     */
+    private static int emailDomainEnd(CharSequence s, int p, int n) {
+        int runEnd = p;
+        while (runEnd < n && isEmailDomain(s.charAt(runEnd))) runEnd++;
+
+        // Greedy + backtracking: the right-most '.' (not first char) followed by >= 2 letters wins.
+        for (int dot = runEnd - 3; dot >= p + 1; dot--) {
+            if (s.charAt(dot) != '.') continue;
+            if (!Character.isLetter(s.charAt(dot + 1)) || !Character.isLetter(s.charAt(dot + 2))) continue;
+            int end = dot + 3;
+            while (end < runEnd && end - dot - 1 < 63 && Character.isLetter(s.charAt(end))) end++;
+            return end;
+        }
+        return -1;
+    }
+
+    /** url( \s* (["']?) value \1 \s* ) with the '(' just before p. Returns the new resume position. */
+    private static int cssUrl(CharSequence s, int p, int n, Sink sink, int next) {
+        p = skipSpaces(s, p, n);
+        char quote = 0;
+        if (p < n && (s.charAt(p) == '"' || s.charAt(p) == '\'')) quote = s.charAt(p++);
+
+        int v = p;
+        while (p < n) {
+            char c = s.charAt(p);
+            if (c == '"' || c == '\'' || c == ')' || isSpace(c)) break;
+            p++;
+        }
+        if (p == v) return next;
+        int valueEnd = p;
+
+        if (quote != 0) {
+            if (p >= n || s.charAt(p) != quote) return next;
+            p++;
+        }
+        p = skipSpaces(s, p, n);
+        if (p >= n || s.charAt(p) != ')') return next;
+
+        sink.accept(Context.CSS_URL, s, v, valueEnd);
+        return p + 1;
+    }
+
+    /**
+     * CSP directive name at i followed by \s+ and a non-empty [^;]+ value. Returns where the value
+     * starts (the ';' itself for the whitespace-only case), or -1 if there is no match.
+     */
+    private static int cspValueStart(CharSequence s, int i, int n) {
+        for (String name : CSP_NAMES) {
+            if (!regionMatchesIgnoreCase(s, i, name)) continue;
+            int e = i + name.length();
+            int g = skipSpaces(s, e, n);
+            int ws = g - e;
+            if (ws == 0) return -1;
+            if (g < n && s.charAt(g) != ';') return g;
+            return ws >= 2 ? g : -1; // backtrack: last space becomes the value
+        }
+        return -1;
+    }
+
+    // ---- character classes (ASCII semantics, as java.util.regex without UNICODE_CHARACTER_CLASS) ----
+
+    /** Chars {@link Delimiters} must stop on. */
+    static boolean isDelimiter(char c) {
+        return switch (c) {
+            case ':', '/', '@', '(', '-', '%', '&', '\n', '\r', '\u0085', '\u2028', '\u2029' -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isEncodedDelimiter(int c) {
+        return c == ':' || c == '/' || c == '@' || c == '.';
+    }
+
+    private static boolean isHeaderName(CharSequence s, int p) {
+        for (String name : HEADER_NAMES) {
+            if (regionMatchesIgnoreCase(s, p, name)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isWord(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isEmailLocal(char c) {
+        return Character.isLetter(c) || (c >= '0' && c <= '9')
+                || c == '.' || c == '_' || c == '%' || c == '+' || c == '-';
+    }
+
+    private static boolean isEmailDomain(char c) {
+        return Character.isLetter(c) || (c >= '0' && c <= '9') || c == '.' || c == '-';
+    }
+
+    private static boolean isCspInitial(char c) {
+        switch (c | 0x20) {
+            case 'd', 'c', 's', 'i', 'm', 'f':
+                return c < 0x80;
+            default:
+                return false;
+        }
+    }
+
+    private static int skipSpaces(CharSequence s, int p, int n) {
+        while (p < n && isSpace(s.charAt(p))) p++;
+        return p;
+    }
+
+    /** ASCII case-insensitive match of a lowercase literal at offset. */
+    private static boolean regionMatchesIgnoreCase(CharSequence s, int offset, String lower) {
+        int len = lower.length();
+        if (offset < 0 || offset + len > s.length()) return false;
+        for (int k = 0; k < len; k++) {
+            char c = s.charAt(offset + k);
+            if (c >= 'A' && c <= 'Z') c = (char) (c + 32);
+            if (c != lower.charAt(k)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,109 @@
+// ContextStats.java
+// Per-context extraction counters (matches, rejects, domains, time) for DomainExtractor.
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One set of LongAdders per {@link ContextScanner.Context}, bumped from every scanner thread:
+ *
+ * <ul>
+ *   <li>{@code matches}: captures the context produced;</li>
+ *   <li>{@code notHost}: captures with no usable host (an IP, a malformed or empty authority);</li>
+ *   <li>{@code unregistrable}: hosts with no registrable domain (bad IDN, no dot, no public suffix);</li>
+ *   <li>{@code domains}: registrable domains the context added to a response's result (a domain
+ *       another context already found for the same response is not counted again);</li>
+ *   <li>{@code nanos}: time spent on the context. With the scanner engines all contexts share one pass,
+ *       so this is the time spent turning its captures into domains (normalize, IDN, PSL); with the
+ *       regex engine it is the context's whole pass. Structured headers count as HEADER (CSP headers
+ *       as CSP), parsing included.</li>
+ * </ul>
+ *
+ * On by default; -Ddomainjackr.contextStats=false turns it off.
+ */
+final class ContextStats {
+    enum Outcome { NOT_HOST, UNREGISTRABLE, DUPLICATE, ADDED }
+
+    private static final ContextScanner.Context[] CONTEXTS = ContextScanner.Context.values();
+
+    private final LongAdder[] matches = adders();
+    private final LongAdder[] notHost = adders();
+    private final LongAdder[] unregistrable = adders();
+    private final LongAdder[] domains = adders();
+    private final LongAdder[] nanos = adders();
+
+    /** Null when -Ddomainjackr.contextStats=false. */
+    static ContextStats fromSystemProperty() {
+        return Boolean.parseBoolean(System.getProperty("domainjackr.contextStats", "true")) ? new ContextStats() : null;
+    }
+
+    /** One capture of {@code context} and what became of it. */
+    void match(ContextScanner.Context context, Outcome outcome) {
+        int i = context.ordinal();
+        matches[i].increment();
+        switch (outcome) {
+            case NOT_HOST -> notHost[i].increment();
+            case UNREGISTRABLE -> unregistrable[i].increment();
+            case ADDED -> domains[i].increment();
+            case DUPLICATE -> { }
+        }
+    }
+
+    void time(ContextScanner.Context context, long elapsedNanos) {
+        nanos[context.ordinal()].add(elapsedNanos);
+    }
+
+    long matches(ContextScanner.Context context) {
+        return matches[context.ordinal()].sum();
+    }
+
+    long notHost(ContextScanner.Context context) {
+        return notHost[context.ordinal()].sum();
+    }
+
+    long unregistrable(ContextScanner.Context context) {
+        return unregistrable[context.ordinal()].sum();
+    }
+
+    long domains(ContextScanner.Context context) {
+        return domains[context.ordinal()].sum();
+    }
+
+    long nanos(ContextScanner.Context context) {
+        return nanos[context.ordinal()].sum();
+    }
+
+    /** Publish {@code prefix.<context>.matches|notHost|unregistrable|domains|nanos} for every context. */
+    void exportTo(Metrics metrics, String prefix) {
+        for (ContextScanner.Context c : CONTEXTS) {
+            String name = prefix + "." + metricName(c);
+            metrics.gauge(name + ".matches", () -> matches(c));
+            metrics.gauge(name + ".notHost", () -> notHost(c));
+            metrics.gauge(name + ".unregistrable", () -> unregistrable(c));
+            metrics.gauge(name + ".domains", () -> domains(c));
+            metrics.gauge(name + ".nanos", () -> nanos(c));
+        }
+    }
+
+    // ---- helpers ----
+
+    /** SCHEME_RELATIVE -> schemeRelative. */
+    private static String metricName(ContextScanner.Context context) {
+        StringBuilder sb = new StringBuilder();
+        boolean upper = false;
+        for (char c : context.name().toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                sb.append(upper ? c : Character.toLowerCase(c));
+                upper = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static LongAdder[] adders() {
+        LongAdder[] a = new LongAdder[CONTEXTS.length];
+        for (int i = 0; i < a.length; i++) a[i] = new LongAdder();
+        return a;
+    }
+}
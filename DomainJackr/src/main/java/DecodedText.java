@@ -0,0 +1,203 @@
+// DecodedText.java
+// Lazily decoded CharSequence views (percent-encoding, HTML character references) for DomainExtractor.
+
+import java.util.Objects;
+
+/**
+ * Reads a source CharSequence as if it were decoded ({@code https%3A%2F%2F} and {@code https:&#x2F;&#x2F;}
+ * both read as {@code https://}) without making the decoded copy: every char is decoded when it is read.
+ * A cursor remembers where the last decoded index sits in the source, so the scanner's forward walk
+ * costs one step per char and its short look-backs one step back each (both encodings can be decoded
+ * right to left unambiguously). Only {@link #subSequence} and {@link #toString} allocate, and the scanner
+ * calls them on matched hosts only.
+ *
+ * <p>The constructor walks the source once to learn the decoded length. Not thread-safe.
+ */
+abstract class DecodedText implements CharSequence {
+    final CharSequence src;
+    private final int length;
+    private int pos; // decoded index of the cursor
+    private int at;  // source index where decoded char pos starts
+
+    DecodedText(CharSequence src) {
+        this.src = src;
+        int n = 0;
+        for (int i = 0, end = src.length(); i < end; i += unitAt(i)) n++;
+        this.length = n;
+    }
+
+    /** {@code %XX} escapes decoded (any byte value, read as ISO-8859-1 like the rest of a body). */
+    static DecodedText percent(CharSequence src) {
+        return new Percent(src);
+    }
+
+    /** Numeric ({@code &#47;}, {@code &#x2F;}) and the common named character references decoded. */
+    static DecodedText entities(CharSequence src) {
+        return new Entities(src);
+    }
+
+    /** The char the escape ({@code %2F}) or reference ({@code &#x2F;}) at {@code i} stands for, or -1. */
+    static int escapedCharAt(CharSequence s, int i) {
+        return switch (s.charAt(i)) {
+            case '%' -> Percent.isEscape(s, i) ? Percent.value(s, i) : -1;
+            case '&' -> Entities.reference(s, i);
+            default -> -1;
+        };
+    }
+
+    /** Source chars taken by the encoded unit (escape or plain char) starting at source index {@code i}. */
+    abstract int unitAt(int i);
+
+    /** Source chars taken by the unit that ends just before source index {@code end}. */
+    abstract int unitBefore(int end);
+
+    /** The decoded char of the unit at {@code i}, which is {@code len} source chars long. */
+    abstract char decode(int i, int len);
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+        if (index < pos - index) { // closer to the start than to the cursor
+            pos = 0;
+            at = 0;
+        }
+        while (pos < index) {
+            at += unitAt(at);
+            pos++;
+        }
+        while (pos > index) {
+            at -= unitBefore(at);
+            pos--;
+        }
+        return decode(at, unitAt(at));
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length);
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) sb.append(charAt(i));
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+
+    // ---- encodings ----
+
+    private static final class Percent extends DecodedText {
+        Percent(CharSequence src) {
+            super(src);
+        }
+
+        @Override
+        int unitAt(int i) {
+            return isEscape(src, i) ? 3 : 1;
+        }
+
+        @Override
+        int unitBefore(int end) {
+            // '%' is not a hex digit, so a '%' three back always starts an escape
+            return end >= 3 && isEscape(src, end - 3) ? 3 : 1;
+        }
+
+        @Override
+        char decode(int i, int len) {
+            return len == 1 ? src.charAt(i) : (char) value(src, i);
+        }
+
+        static int value(CharSequence s, int i) {
+            return Character.digit(s.charAt(i + 1), 16) << 4 | Character.digit(s.charAt(i + 2), 16);
+        }
+
+        static boolean isEscape(CharSequence s, int i) {
+            return i + 2 < s.length() && s.charAt(i) == '%'
+                    && Character.digit(s.charAt(i + 1), 16) >= 0 && Character.digit(s.charAt(i + 2), 16) >= 0;
+        }
+    }
+
+    private static final class Entities extends DecodedText {
+        private static final int MAX_REFERENCE = 10; // "&#x0002F;" and "&commat;" fit
+        private static final String[] NAMES = {
+                "amp", "lt", "gt", "quot", "apos", "sol", "colon", "commat", "period", "hyphen" };
+        private static final String VALUES = "&<>\"'/:@.-";
+
+        Entities(CharSequence src) {
+            super(src);
+        }
+
+        @Override
+        int unitAt(int i) {
+            return reference(src, i) >= 0 ? referenceLength(src, i) : 1;
+        }
+
+        @Override
+        int unitBefore(int end) {
+            // A reference ends in ';' and holds no '&', so the last '&' before it is its only possible start
+            if (end < 3 || src.charAt(end - 1) != ';') return 1;
+            for (int i = end - 2; i >= Math.max(0, end - MAX_REFERENCE); i--) {
+                char c = src.charAt(i);
+                if (c == '&') return reference(src, i) >= 0 && referenceLength(src, i) == end - i ? end - i : 1;
+                if (c == ';') return 1;
+            }
+            return 1;
+        }
+
+        @Override
+        char decode(int i, int len) {
+            return len == 1 ? src.charAt(i) : (char) reference(src, i);
+        }
+
+        /** Decoded value of the reference starting at {@code i}, or -1 if there is none. */
+        static int reference(CharSequence s, int i) {
+            int semi = semicolon(s, i);
+            if (semi < 0) return -1;
+            if (s.charAt(i + 1) == '#') {
+                boolean hex = s.charAt(i + 2) == 'x' || s.charAt(i + 2) == 'X';
+                int from = hex ? i + 3 : i + 2;
+                if (from == semi) return -1;
+                int v = 0;
+                for (int k = from; k < semi; k++) {
+                    int d = Character.digit(s.charAt(k), hex ? 16 : 10);
+                    if (d < 0) return -1;
+                    v = v * (hex ? 16 : 10) + d;
+                }
+                return v <= 0xFFFF ? v : -1;
+            }
+            for (int k = 0; k < NAMES.length; k++) {
+                if (semi - i - 1 == NAMES[k].length() && regionMatches(s, i + 1, NAMES[k])) return VALUES.charAt(k);
+            }
+            return -1;
+        }
+
+        private static boolean regionMatches(CharSequence s, int offset, String name) {
+            for (int k = 0; k < name.length(); k++) {
+                if (s.charAt(offset + k) != name.charAt(k)) return false; // references are case-sensitive
+            }
+            return true;
+        }
+
+        private static int referenceLength(CharSequence s, int i) {
+            return semicolon(s, i) - i + 1;
+        }
+
+        /** Index of the ';' closing a reference that starts with '&' at {@code i}, or -1. */
+        private static int semicolon(CharSequence s, int i) {
+            if (s.charAt(i) != '&') return -1;
+            int end = Math.min(s.length(), i + MAX_REFERENCE);
+            for (int k = i + 1; k < end; k++) {
+                char c = s.charAt(k);
+                if (c == ';') return k > i + 1 ? k : -1;
+                if (!Character.isLetterOrDigit(c) && c != '#') return -1;
+            }
+            return -1;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 // DomainExtractor.java (strict, context-aware)
 // deps: Apache HttpClient 5.x for PSL (same as before)
 
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.HttpHeader;
 import org.apache.hc.client5.http.psl.PublicSuffixMatcher;
-import org.apache.hc.client5.http.psl.PublicSuffixMatcherLoader;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.net.IDN;
 import java.util.*;
 import java.util.regex.Matcher;
@@ -35,114 +38,562 @@ public final class DomainExtractor {
     // For stripping wildcard prefixes (*.example.com) and userinfo/port.
     private static final Pattern WILDCARD_PREFIX = Pattern.compile("^\\*\\.?");
 
-    // Quick IP checks to drop them (we only return domains)
-    private static final Pattern IPV4 = Pattern.compile(
-            "^(?:(?:25[0-5]|2[0-4]\\d|1?\\d?\\d)\\.){3}(?:25[0-5]|2[0-4]\\d|1?\\d?\\d)$"
-    );
-    private static final Pattern BRACKETED_IPV6 = Pattern.compile("^\\[.+\\]$");
-
     private static final int IDN_FLAGS = IDN.ALLOW_UNASSIGNED | IDN.USE_STD3_ASCII_RULES;
 
+    /**
+     * SCANNER walks the input once (ContextScanner); REGEX runs the six patterns one after another.
+     * VECTOR is SCANNER with a SIMD delimiter search (needs {@code --add-modules jdk.incubator.vector};
+     * without it, or on CPUs with narrow vectors, it quietly behaves as SCANNER).
+     * All emit the same domains; REGEX is kept for output/speed comparison.
+     * Select with -Ddomainjackr.engine=regex|scanner|vector.
+     */
+    public enum Engine {
+        SCANNER, VECTOR, REGEX;
+
+        static Engine fromSystemProperty() {
+            String v = System.getProperty("domainjackr.engine", "scanner").trim();
+            if ("regex".equalsIgnoreCase(v)) return REGEX;
+            if ("vector".equalsIgnoreCase(v)) return VECTOR;
+            return SCANNER;
+        }
+    }
+
+    /**
+     * How a response body is read. TEXT runs every context over all of it; HTML tokenizes the markup
+     * (HtmlTokenizer) and scans URL-bearing attributes, script/style bodies, comments and text nodes,
+     * each only for the contexts that make sense there; JS (JsLexer) scans only string, template and regex
+     * literals, with their escapes decoded; JSON (JsonStrings) scans only string tokens. Chosen from the
+     * Content-Type; modes can be limited with -Ddomainjackr.contentModes=html,js,json (comma-separated;
+     * "none" = always TEXT).
+     */
+    public enum ContentMode {
+        TEXT, HTML, JS, JSON;
+
+        private static final Set<ContentMode> ENABLED = enabledFromSystemProperty();
+
+        /** Mode for a Content-Type header value (parameters ignored); TEXT when absent or unknown. */
+        public static ContentMode forContentType(String contentType) {
+            if (contentType == null) return TEXT;
+            String type = contentType.toLowerCase(Locale.ROOT);
+            int semi = type.indexOf(';');
+            if (semi != -1) type = type.substring(0, semi);
+            ContentMode mode = switch (type.trim()) {
+                case "text/html", "application/xhtml+xml" -> HTML;
+                case "application/javascript", "text/javascript", "application/x-javascript",
+                     "application/ecmascript", "text/ecmascript" -> JS;
+                case "application/json", "text/json", "application/x-ndjson", "application/ndjson" -> JSON;
+                default -> type.trim().endsWith("+json") ? JSON : TEXT;
+            };
+            return ENABLED.contains(mode) ? mode : TEXT;
+        }
+
+        /** Whether a body can be read piece by piece (the parser state fits the int ChunkCache keeps). */
+        boolean resumable() {
+            return this != JSON;
+        }
+
+        private static Set<ContentMode> enabledFromSystemProperty() {
+            String v = System.getProperty("domainjackr.contentModes");
+            if (v == null) return EnumSet.allOf(ContentMode.class);
+            Set<ContentMode> modes = EnumSet.of(TEXT);
+            for (String name : v.split(",")) {
+                for (ContentMode m : values()) {
+                    if (m.name().equalsIgnoreCase(name.trim())) modes.add(m);
+                }
+            }
+            return modes;
+        }
+    }
+
+    // Contexts each HTML part is scanned for: no header lines in markup, no CSP outside scripts.
+    private static final int HTML_URL = bits(ContextScanner.Context.URL, ContextScanner.Context.SCHEME_RELATIVE,
+            ContextScanner.Context.EMAIL);
+    // meta content holds a URL (refresh, og:url) or, under http-equiv, a whole Content-Security-Policy.
+    private static final int HTML_CONTENT = HTML_URL | bits(ContextScanner.Context.CSP);
+    // Page text: bare URLs and email addresses only.
+    private static final int HTML_TEXT = bits(ContextScanner.Context.URL, ContextScanner.Context.EMAIL);
+    private static final int HTML_CSS = bits(ContextScanner.Context.URL, ContextScanner.Context.SCHEME_RELATIVE,
+            ContextScanner.Context.CSS_URL);
+    private static final int HTML_SCRIPT = ContextScanner.ALL & ~bits(ContextScanner.Context.HEADER);
+    // JS literals: strings may hold anything a page does; in regex literals "//" is an escaped pattern.
+    private static final int JS_STRING = ContextScanner.ALL & ~bits(ContextScanner.Context.HEADER);
+    private static final int JS_REGEX = bits(ContextScanner.Context.URL, ContextScanner.Context.EMAIL);
+    private static final int JSON_STRING = JS_STRING;
+
+    /** Tokenizer state at the start of a body, in every mode (HtmlTokenizer and JsLexer agree). */
+    static final int INITIAL_STATE = 0;
+
+    // Percent-escaped / entity-encoded hosts are read through DecodedText views unless
+    // -Ddomainjackr.decodeEscapes=false.
+    private static final boolean DECODE_ESCAPES =
+            Boolean.parseBoolean(System.getProperty("domainjackr.decodeEscapes", "true"));
+    private static final int MAX_ENCODED_TOKEN = 2_048;  // decoded window, each side of the escape
+    private static final int INFLATE_PIECE = 64 * 1024;  // inflated chars scanned per round
+    private static final int MAX_INFLATE_PIECE = 1 << 20; // a longer line is cut without a line break
+
+    // Contexts looked for at all: -Ddomainjackr.contexts=url,scheme_relative,email,header,css_url,csp
+    // (comma-separated; default all). Lets a context that ContextStats shows as all cost and no findings be
+    // switched off.
+    private static final int ENABLED_CONTEXTS = contextsFromSystemProperty();
+
+    // Exactly one of these is set: the compiled trie (default) or a caller-supplied matcher.
+    private final SuffixTrie suffixes;
     private final PublicSuffixMatcher psl;
+    private final Engine engine;
+    private final HostCache hostCache; // null = disabled
+    private final HeaderExtractor headerExtractor = new HeaderExtractor(this);
+    private final ContextStats stats = ContextStats.fromSystemProperty(); // null = disabled
+
+    // One extractor is shared by all scanner threads; everything mutable lives here, per thread.
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
 
     public DomainExtractor() {
-        this(PublicSuffixMatcherLoader.getDefault());
+        this(SuffixTrie.getDefault(), Engine.fromSystemProperty());
     }
 
     public DomainExtractor(PublicSuffixMatcher psl) {
+        this(psl, Engine.fromSystemProperty());
+    }
+
+    public DomainExtractor(PublicSuffixMatcher psl, Engine engine) {
+        this.suffixes = null;
         this.psl = Objects.requireNonNull(psl, "psl");
+        this.engine = Objects.requireNonNull(engine, "engine");
+        this.hostCache = HostCache.fromSystemProperty();
+    }
+
+    DomainExtractor(SuffixTrie suffixes, Engine engine) {
+        this(suffixes, engine, HostCache.fromSystemProperty());
+    }
+
+    DomainExtractor(SuffixTrie suffixes, Engine engine, HostCache hostCache) {
+        this.suffixes = Objects.requireNonNull(suffixes, "suffixes");
+        this.psl = null;
+        this.engine = Objects.requireNonNull(engine, "engine");
+        this.hostCache = hostCache;
+    }
+
+    /** Host normalization cache (hit/miss/eviction counters), or null if disabled. */
+    HostCache hostCache() {
+        return hostCache;
+    }
+
+    /** Per-context match/reject/domain/time counters, or null if disabled. */
+    ContextStats contextStats() {
+        return stats;
     }
 
     /** Extract unique registrable domains (eTLD+1) from realistic URL/host contexts only. */
     public List<String> extractDomains(String input) {
         if (input == null || input.isEmpty()) return List.of();
 
-        Set<String> out = new LinkedHashSet<>();
+        Scratch sc = scratch.get();
+        Set<String> out = sc.begin();
+        extractInto(input, out);
+        return new ArrayList<>(out);
+    }
+
+    /**
+     * Same as {@link #extractDomains(String)}, but reads each header and the raw body bytes in place
+     * (no header concatenation, no bodyToString). Only matched host slices are turned into Strings.
+     * Headers are parsed by name ({@link HeaderExtractor}); the body is read in the {@link ContentMode}
+     * its Content-Type header calls for.
+     */
+    public List<String> extractDomains(List<HttpHeader> headers, ByteArray body) {
+        Scratch sc = scratch.get();
+        Set<String> out = sc.begin();
+        String contentType = null, contentEncoding = null;
+        if (headers != null) {
+            for (HttpHeader h : headers) {
+                if (contentType == null && "Content-Type".equalsIgnoreCase(h.name())) contentType = h.value();
+                if (contentEncoding == null && "Content-Encoding".equalsIgnoreCase(h.name())) contentEncoding = h.value();
+                headerExtractor.extractInto(h.name(), h.value(), out);
+            }
+        }
+        if (body != null && body.length() > 0) {
+            extractBodyInto(body, ContentMode.forContentType(contentType), contentEncoding, ScanBudget.Deadline.NONE,
+                    out);
+        }
+        return new ArrayList<>(out);
+    }
+
+    /** Domains in a response body read in {@code mode}. */
+    public List<String> extractDomains(ByteArray body, ContentMode mode) {
+        return extractDomains(body, mode, null);
+    }
+
+    /**
+     * Same, for a body sent with {@code contentEncoding}: gzip and deflate bodies that are still
+     * compressed are inflated as they are scanned ({@link ContentCoding}); brotli/zstd ones yield nothing.
+     */
+    public List<String> extractDomains(ByteArray body, ContentMode mode, String contentEncoding) {
+        return extractDomains(body, mode, contentEncoding, ScanBudget.Deadline.NONE);
+    }
+
+    /**
+     * Same, stopping once {@code deadline} has passed (checked between pieces of up to 1 MiB) with the
+     * domains found so far.
+     */
+    List<String> extractDomains(ByteArray body, ContentMode mode, String contentEncoding, ScanBudget.Deadline deadline) {
+        if (body == null || body.length() == 0) return List.of();
+        Scratch sc = scratch.get();
+        Set<String> out = sc.begin();
+        extractBodyInto(body, mode, contentEncoding, deadline, out);
+        return new ArrayList<>(out);
+    }
+
+    // ---- engines ----
+
+    private void extractBodyInto(ByteArray body, ContentMode mode, String contentEncoding,
+                                 ScanBudget.Deadline deadline, Set<String> out) {
+        if (ContentCoding.isUnreadable(contentEncoding)) return; // compressed bytes are not text
+        try (Reader inflated = ContentCoding.reader(body, contentEncoding)) {
+            if (inflated == null) {
+                extractPieces(new ByteText(body), mode, deadline, out);
+            } else if (mode == ContentMode.JSON) {
+                try {
+                    JsonStrings.forEach(inflated, value -> extractInto(value, JSON_STRING, out), deadline::expired);
+                } catch (IOException | IllegalStateException e) {
+                    // not JSON after all: start over as text (duplicates fall away in the set)
+                    try (Reader again = ContentCoding.reader(body, contentEncoding)) {
+                        extractInflated(again, ContentMode.TEXT, deadline, out);
+                    }
+                }
+            } else {
+                extractInflated(inflated, mode, deadline, out);
+            }
+        } catch (IOException e) {
+            // corrupt or truncated stream: keep what was found before it
+        }
+    }
+
+    /**
+     * A body in pieces of up to {@link #MAX_INFLATE_PIECE} chars, each ending on a line break where one
+     * is near, so {@code deadline} can be checked in between; the tokenizer state carries across.
+     * JSON bodies are read whole, with the deadline polled by the JSON reader.
+     */
+    private void extractPieces(CharSequence text, ContentMode mode, ScanBudget.Deadline deadline, Set<String> out) {
+        if (mode == ContentMode.JSON) {
+            try {
+                JsonStrings.forEach(text, value -> extractInto(value, JSON_STRING, out), deadline::expired);
+            } catch (IOException | IllegalStateException e) {
+                extractPieces(text, ContentMode.TEXT, deadline, out); // not JSON after all
+            }
+            return;
+        }
+        final int n = text.length();
+        if (n <= MAX_INFLATE_PIECE || !mode.resumable()) {
+            extractInto(text, mode, INITIAL_STATE, out);
+            return;
+        }
+        int state = INITIAL_STATE;
+        for (int from = 0, to; from < n && !deadline.expired(); from = to) {
+            to = Math.min(n, from + MAX_INFLATE_PIECE);
+            for (int cut = to; to < n && cut > to - INFLATE_PIECE; cut--) {
+                if (text.charAt(cut - 1) == '\n') {
+                    to = cut;
+                    break;
+                }
+            }
+            state = extractInto(text.subSequence(from, to), mode, state, out);
+        }
+    }
 
+    /**
+     * An inflated body, a piece at a time. Pieces end on a line break so no capture or literal is cut,
+     * and the tokenizer state carries from one to the next (as in ChunkCache); a line longer than
+     * {@link #MAX_INFLATE_PIECE} is cut where the buffer ends.
+     */
+    private void extractInflated(Reader in, ContentMode mode, ScanBudget.Deadline deadline, Set<String> out)
+            throws IOException {
+        char[] buf = new char[INFLATE_PIECE];
+        int len = 0, state = INITIAL_STATE;
+        for (int read; !deadline.expired() && (read = in.read(buf, len, buf.length - len)) != -1; ) {
+            len += read;
+            int cut = len;
+            while (cut > 0 && buf[cut - 1] != '\n') cut--;
+            if (cut == 0) {
+                if (len < buf.length) continue;
+                if (buf.length < MAX_INFLATE_PIECE) {
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                    continue;
+                }
+                cut = len;
+            }
+            state = extractInto(new String(buf, 0, cut), mode, state, out);
+            System.arraycopy(buf, cut, buf, 0, len - cut);
+            len -= cut;
+        }
+        if (len > 0 && !deadline.expired()) extractInto(new String(buf, 0, len), mode, state, out);
+    }
+
+    /**
+     * {@code input} read in {@code mode}, continuing from tokenizer {@code state} (pass
+     * {@link #INITIAL_STATE} at the start of a body). Returns the state to continue the next piece of
+     * the same body with; always INITIAL_STATE for TEXT, and for JSON, which must get the whole body
+     * ({@link ContentMode#resumable()}).
+     */
+    int extractInto(CharSequence input, ContentMode mode, int state, Set<String> out) {
+        return switch (mode) {
+            case HTML -> HtmlTokenizer.tokenize(input, state, (part, text, start, end) -> {
+                int contexts = switch (part) {
+                    case URL, COMMENT -> HTML_URL;
+                    case CONTENT -> HTML_CONTENT;
+                    case TEXT -> HTML_TEXT;
+                    case CSS -> HTML_CSS;
+                    case SCRIPT -> HTML_SCRIPT;
+                };
+                extractInto(text.subSequence(start, end), contexts, out);
+            });
+            case JS -> JsLexer.tokenize(input, state, (part, text, start, end, escaped) -> {
+                CharSequence literal = escaped
+                        ? JsLexer.decode(text, start, end, scratch.get().decoded)
+                        : text.subSequence(start, end);
+                extractInto(literal, part == JsLexer.Part.REGEX ? JS_REGEX : JS_STRING, out);
+            });
+            case JSON -> {
+                try {
+                    JsonStrings.forEach(input, value -> extractInto(value, JSON_STRING, out));
+                } catch (IOException | IllegalStateException e) {
+                    extractInto(input, out); // not JSON after all (JSONP, an HTML error page, ...)
+                }
+                yield INITIAL_STATE;
+            }
+            case TEXT -> {
+                extractInto(input, out);
+                yield INITIAL_STATE;
+            }
+        };
+    }
+
+    void extractInto(CharSequence input, Set<String> out) {
+        extractInto(input, ContextScanner.ALL, out);
+    }
+
+    /** Only the contexts in {@code allowed} are looked for. */
+    void extractInto(CharSequence input, int allowed, Set<String> out) {
+        extractInto(input, allowed, DECODE_ESCAPES, out);
+    }
+
+    /** With {@code decode}, encoded tokens are read once more through decoding views afterwards. */
+    private void extractInto(CharSequence input, int allowed, boolean decode, Set<String> out) {
+        allowed &= ENABLED_CONTEXTS;
+        if (allowed == 0) return;
+        // Most API payloads have no trigger literal at all: one cheap pass and we are done.
+        Scratch sc = scratch.get();
+        int found = ContextScanner.triggers(input, decode ? allowed | ContextScanner.ENCODED : allowed, sc.delimiters);
+        int contexts = found & ContextScanner.ALL;
+        if (contexts != 0) scan(sc, input, contexts, out);
+        if ((found & ContextScanner.ENCODED) != 0) extractEncoded(sc, input, allowed, out);
+    }
+
+    private void scan(Scratch sc, CharSequence input, int contexts, Set<String> out) {
+        if (engine == Engine.REGEX) {
+            extractWithRegex(sc, input, contexts, out);
+        } else {
+            Set<String> prev = sc.target;
+            sc.target = out;
+            try {
+                ContextScanner.scan(input, contexts, sc.delimiters, sc);
+            } finally {
+                sc.target = prev;
+            }
+        }
+    }
+
+    /**
+     * Every token (run between whitespace, quotes and angle brackets) that holds an escaped ':', '/', '@'
+     * or '.' is read again through an entity- then percent-decoding view: {@code url=https%3A%2F%2Fa.com}
+     * and {@code https:&#x2F;&#x2F;a.com} yield a.com. Only the token is viewed, and nothing is copied.
+     */
+    private void extractEncoded(Scratch sc, CharSequence input, int allowed, Set<String> out) {
+        final int n = input.length();
+        ContextScanner.Delimiters d = sc.delimiters.reset(input);
+        for (int i = d.next(0); i < n; i = d.next(i + 1)) {
+            char c = input.charAt(i);
+            if (c != '%' && c != '&') continue;
+            int v = DecodedText.escapedCharAt(input, i);
+            if (v != ':' && v != '/' && v != '@' && v != '.') continue;
+
+            int from = i, to = i;
+            while (from > 0 && i - from < MAX_ENCODED_TOKEN && !isTokenEnd(input.charAt(from - 1))) from--;
+            while (to < n && to - i < MAX_ENCODED_TOKEN && !isTokenEnd(input.charAt(to))) to++;
+            CharSequence token = input.subSequence(from, to);
+            extractInto(DecodedText.percent(DecodedText.entities(token)), allowed, false, out);
+
+            d.reset(input); // the nested scan used the same cursor
+            i = to - 1;
+        }
+    }
+
+    /** The six patterns in turn, skipping those whose trigger literal is absent ({@code contexts}). */
+    private void extractWithRegex(Scratch sc, CharSequence input, int contexts, Set<String> out) {
         // 1) Full URLs
-        collectFromMatcher(URL_HOST.matcher(input), out);
+        if (has(contexts, ContextScanner.Context.URL)) {
+            collectFromMatcher(ContextScanner.Context.URL, sc.urlHost.reset(input), input, out);
+        }
 
         // 2) Scheme-relative //host/path
-        collectFromMatcher(SCHEMELESS_HOST.matcher(input), out);
+        if (has(contexts, ContextScanner.Context.SCHEME_RELATIVE)) {
+            collectFromMatcher(ContextScanner.Context.SCHEME_RELATIVE, sc.schemelessHost.reset(input), input, out);
+        }
 
         // 3) Emails
-        collectFromMatcher(EMAIL_DOMAIN.matcher(input), out);
+        if (has(contexts, ContextScanner.Context.EMAIL)) {
+            collectFromMatcher(ContextScanner.Context.EMAIL, sc.emailDomain.reset(input), input, out);
+        }
 
         // 4) Common headers (works because your logger puts headers as plain text)
-        collectFromMatcher(HEADER_HOST.matcher(input), out);
+        if (has(contexts, ContextScanner.Context.HEADER)) {
+            collectFromMatcher(ContextScanner.Context.HEADER, sc.headerHost.reset(input), input, out);
+        }
 
         // 5) CSS url(...)
-        Matcher css = CSS_URL.matcher(input);
-        while (css.find()) {
-            String value = css.group(2);
-            String host = hostFromUrlLike(value);
-            if (host != null) addIfRegistrable(host, out);
+        if (has(contexts, ContextScanner.Context.CSS_URL)) {
+            long start = clock();
+            Matcher css = sc.cssUrl.reset(input);
+            while (css.find()) {
+                String value = css.group(2);
+                collectHost(ContextScanner.Context.CSS_URL, hostFromUrlLike(value), out);
+            }
+            elapsed(ContextScanner.Context.CSS_URL, start);
         }
 
         // 6) CSP directive token lists
-        Matcher csp = CSP_DIRECTIVE.matcher(input);
-        while (csp.find()) {
-            String list = csp.group(1);
-            for (String token : list.split("\\s+")) {
-                String host = hostFromCspToken(token);
-                if (host != null) addIfRegistrable(host, out);
+        if (has(contexts, ContextScanner.Context.CSP)) {
+            long start = clock();
+            Matcher csp = sc.cspDirective.reset(input);
+            while (csp.find()) {
+                String list = csp.group(1);
+                for (String token : list.split("\\s+")) {
+                    collectHost(ContextScanner.Context.CSP, hostFromCspToken(token), out);
+                }
             }
+            elapsed(ContextScanner.Context.CSP, start);
         }
+    }
 
-        return new ArrayList<>(out);
+    /** Post-process one ContextScanner capture the same way the matching regex pass would. */
+    private void collect(ContextScanner.Context context, CharSequence text, int start, int end, Set<String> out) {
+        long since = clock();
+        String host = switch (context) {
+            case URL, SCHEME_RELATIVE, EMAIL, HEADER -> hostFromAuthority(text, start, end);
+            case CSS_URL -> hostFromUrlLike(text.subSequence(start, end).toString());
+            case CSP -> hostFromCspToken(text.subSequence(start, end).toString());
+        };
+        collectHost(context, host, out);
+        elapsed(context, since);
+    }
+
+    /** Reduce a capture's host (null: it had none) and add it to {@code out}, counted under {@code context}. */
+    void collectHost(ContextScanner.Context context, String host, Set<String> out) {
+        String root = host == null ? null : registrableDomain(host);
+        boolean added = root != null && out.add(root);
+        if (stats == null) return;
+        stats.match(context, host == null ? ContextStats.Outcome.NOT_HOST
+                : root == null ? ContextStats.Outcome.UNREGISTRABLE
+                : added ? ContextStats.Outcome.ADDED : ContextStats.Outcome.DUPLICATE);
+    }
+
+    /** Start of a timed section ({@link #elapsed}); free when stats are off. */
+    long clock() {
+        return stats == null ? 0 : System.nanoTime();
+    }
+
+    void elapsed(ContextScanner.Context context, long since) {
+        if (stats != null) stats.time(context, System.nanoTime() - since);
+    }
+
+    static boolean isEnabled(ContextScanner.Context context) {
+        return (ENABLED_CONTEXTS & ContextScanner.bit(context)) != 0;
     }
 
     // ---- helpers ----
 
-    private void collectFromMatcher(Matcher m, Set<String> out) {
-        while (m.find()) {
-            String authorityOrHost = m.group(1);
-            String host = hostFromAuthority(authorityOrHost);
-            if (host != null) addIfRegistrable(host, out);
+    private static boolean isTokenEnd(char c) {
+        return c <= ' ' || c == '"' || c == '\'' || c == '<' || c == '>';
+    }
+
+    private static boolean has(int contexts, ContextScanner.Context context) {
+        return (contexts & ContextScanner.bit(context)) != 0;
+    }
+
+    private static int bits(ContextScanner.Context... contexts) {
+        int mask = 0;
+        for (ContextScanner.Context c : contexts) mask |= ContextScanner.bit(c);
+        return mask;
+    }
+
+    private void collectFromMatcher(ContextScanner.Context context, Matcher m, CharSequence input, Set<String> out) {
+        long start = clock();
+        while (m.find()) collectHost(context, hostFromAuthority(input, m.start(1), m.end(1)), out);
+        elapsed(context, start);
+    }
+
+    private static int contextsFromSystemProperty() {
+        String v = System.getProperty("domainjackr.contexts");
+        if (v == null) return ContextScanner.ALL;
+        int mask = 0;
+        for (String name : v.split(",")) {
+            for (ContextScanner.Context c : ContextScanner.Context.values()) {
+                if (c.name().equalsIgnoreCase(name.trim().replace('-', '_'))) mask |= ContextScanner.bit(c);
+            }
         }
+        return mask;
     }
 
-    /** Normalize authority to a host: strip userinfo, port, brackets; ignore IPs. */
-    private String hostFromAuthority(String authority) {
-        if (authority == null || authority.isEmpty()) return null;
-        String a = authority.trim();
+    private static String hostFromAuthority(String authority) {
+        if (authority == null) return null;
+        return hostFromAuthority(authority, 0, authority.length());
+    }
+
+    /**
+     * Normalize authority s[from, to) to a host: strip userinfo, port, brackets; ignore IPs.
+     * Works on indexes into the source; the only allocation is the returned host.
+     */
+    static String hostFromAuthority(CharSequence s, int from, int to) {
+        // trim()
+        while (from < to && s.charAt(from) <= ' ') from++;
+        while (to > from && s.charAt(to - 1) <= ' ') to--;
 
         // Remove userinfo if present
-        int at = a.lastIndexOf('@');
-        if (at != -1) a = a.substring(at + 1);
+        for (int i = to - 1; i >= from; i--) {
+            if (s.charAt(i) == '@') {
+                from = i + 1;
+                break;
+            }
+        }
 
         // IPv6 in brackets? treat as IP (skip)
-        if (BRACKETED_IPV6.matcher(a).matches()) return null;
+        if (isBracketed(s, from, to)) return null;
 
-        // Strip path/query/hash if any (for sloppy matches)
-        int slash = a.indexOf('/');
-        if (slash != -1) a = a.substring(0, slash);
+        // Strip path/query/hash if any (for sloppy matches), then port (host:port)
+        to = indexOf(s, '/', from, to);
+        to = indexOf(s, ':', from, to);
 
-        // Strip port (host:port)
-        int colon = a.indexOf(':');
-        if (colon != -1) a = a.substring(0, colon);
+        // Leading/trailing dots (inner runs are collapsed when the host is materialized)
+        while (from < to && s.charAt(from) == '.') from++;
+        while (to > from && s.charAt(to - 1) == '.') to--;
+        if (from >= to) return null;
 
-        a = trimDots(a.toLowerCase(Locale.ROOT));
-        if (a.isEmpty()) return null;
+        if (isIpv4(s, from, to)) return null; // drop IPs
 
-        if (IPV4.matcher(a).matches()) return null; // drop IPs
-
-        return a;
+        return lowerCollapsingDots(s, from, to);
     }
 
     /** Extract host from a bare URL-ish string (may be absolute or scheme-relative). */
     private String hostFromUrlLike(String s) {
         if (s == null || s.isEmpty()) return null;
         Matcher m1 = URL_HOST.matcher(s);
-        if (m1.find()) return hostFromAuthority(m1.group(1));
+        if (m1.find()) return hostFromAuthority(s, m1.start(1), m1.end(1));
         Matcher m2 = SCHEMELESS_HOST.matcher(s);
-        if (m2.find()) return hostFromAuthority(m2.group(1));
+        if (m2.find()) return hostFromAuthority(s, m2.start(1), m2.end(1));
         // Not a URL; ignore
         return null;
     }
 
     /** Parse CSP source token to host if applicable (ignores keywords/schemes). */
-    private String hostFromCspToken(String token) {
+    String hostFromCspToken(String token) {
         if (token == null || token.isEmpty()) return null;
         String t = token.trim().replaceAll("^['\"]|['\"]$", ""); // strip quotes
 
@@ -165,33 +616,190 @@ public final class DomainExtractor {
         return hostFromAuthority(t);
     }
 
-    private void addIfRegistrable(String host, Set<String> out) {
-        String ascii;
-        try {
-            ascii = IDN.toASCII(host, IDN_FLAGS);
-        } catch (Exception e) {
-            return; // bad IDN
-        }
+    /** eTLD+1 for a normalized host, or null. Memoized (negative answers too) when the cache is on. */
+    String registrableDomain(String host) {
+        if (hostCache == null) return reduce(host);
+        String cached = hostCache.get(host);
+        if (cached != null) return cached.isEmpty() ? null : cached;
+        String root = reduce(host);
+        hostCache.put(host, root);
+        return root;
+    }
+
+    /** IDN -> ASCII, dot cleanup and PSL reduction. */
+    private String reduce(String host) {
+        String ascii = toAscii(host);
+        if (ascii == null) return null; // bad IDN
         ascii = trimDots(ascii);
-        if (ascii.isEmpty()) return;
+        if (ascii.isEmpty()) return null;
 
         // Minimal heuristic to drop super-short SLDs like "a.kg" if you want:
         // (Uncomment if needed)
         // int dot = ascii.lastIndexOf('.');
-        // if (dot > 0 && ascii.substring(0, dot).length() < 2) return;
+        // if (dot > 0 && ascii.substring(0, dot).length() < 2) return null;
 
         // check if the string contains a dot
-        if (ascii.indexOf('.') == -1) return;
+        if (ascii.indexOf('.') == -1) return null;
 
         // PSL reduction
-        String root = psl.getDomainRoot(ascii);
-        if (root == null || root.isEmpty() || root.indexOf('.') == -1) return;
-        out.add(root.toLowerCase(Locale.ROOT));
+        String root;
+        if (suffixes != null) {
+            int start = suffixes.rootStart(ascii, 0, ascii.length());
+            root = start < 0 ? null : ascii.substring(start);
+        } else {
+            root = psl.getDomainRoot(ascii);
+        }
+        if (root == null || root.isEmpty() || root.indexOf('.') == -1) return null;
+        return root.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * {@code IDN.toASCII(host, IDN_FLAGS)}, or null where it would throw. Plain ASCII hosts are checked
+     * against the same STD3/LDH rules in one pass and returned as-is; only hosts containing a
+     * non-ASCII char go through IDN (nameprep + punycode).
+     */
+    private static String toAscii(String host) {
+        final int n = host.length();
+        if (n == 1 && host.charAt(0) == '.') return host; // root label
+        int labelStart = 0;
+        for (int i = 0; i < n; i++) {
+            char c = host.charAt(i);
+            if (c == '.') {
+                if (!isLdhLabel(host, labelStart, i)) return null;
+                labelStart = i + 1;
+            } else if (c >= 0x80) {
+                try {
+                    return IDN.toASCII(host, IDN_FLAGS);
+                } catch (Exception e) {
+                    return null;
+                }
+            } else if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || (c >= 'A' && c <= 'Z'))) {
+                return null; // non-LDH ASCII (IDN rejects the label regardless of the rest)
+            }
+        }
+        // A single trailing dot is fine for IDN (no empty label after it is processed)
+        if (labelStart < n && !isLdhLabel(host, labelStart, n)) return null;
+        return host;
+    }
+
+    /** 1..63 chars, no leading/trailing hyphen (chars already checked). */
+    private static boolean isLdhLabel(String s, int start, int end) {
+        int len = end - start;
+        return len > 0 && len <= 63 && s.charAt(start) != '-' && s.charAt(end - 1) != '-';
+    }
+
+    /**
+     * Per-thread scratch for one extraction: the result set, the scanner sink, a reusable header view,
+     * the delimiter cursor and the regex engine's matchers. Reset (not reallocated) at the start of every call.
+     */
+    private final class Scratch implements ContextScanner.Sink {
+        // Past this many entries a fresh set is cheaper than clear() walking the grown table.
+        private static final int RETAIN_LIMIT = 256;
+
+        private LinkedHashSet<String> found = new LinkedHashSet<>();
+        private Set<String> target;
+        final StringBuilder decoded = new StringBuilder();
+        final ContextScanner.Delimiters delimiters =
+                engine == Engine.VECTOR ? ContextScanner.Delimiters.vector() : ContextScanner.Delimiters.scalar();
+
+        final Matcher urlHost = URL_HOST.matcher("");
+        final Matcher schemelessHost = SCHEMELESS_HOST.matcher("");
+        final Matcher emailDomain = EMAIL_DOMAIN.matcher("");
+        final Matcher headerHost = HEADER_HOST.matcher("");
+        final Matcher cssUrl = CSS_URL.matcher("");
+        final Matcher cspDirective = CSP_DIRECTIVE.matcher("");
+
+        Set<String> begin() {
+            if (found.size() > RETAIN_LIMIT) found = new LinkedHashSet<>();
+            else found.clear();
+            return found;
+        }
+
+        @Override
+        public void accept(ContextScanner.Context context, CharSequence text, int start, int end) {
+            collect(context, text, start, end, target);
+        }
     }
 
+    /** Strip leading/trailing dots and collapse inner runs; returns s itself when there is nothing to do. */
     private static String trimDots(String s) {
-        String t = s.replaceFirst("^\\.+", "").replaceFirst("\\.+$", "");
-        if (t.contains("..")) t = t.replaceAll("\\.+", ".").replaceAll("^\\.|\\.$", "");
-        return t;
+        int from = 0, to = s.length();
+        while (from < to && s.charAt(from) == '.') from++;
+        while (to > from && s.charAt(to - 1) == '.') to--;
+        if (from == 0 && to == s.length() && s.indexOf("..") == -1) return s;
+        StringBuilder sb = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c != '.' || s.charAt(i - 1) != '.') sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * s[from, to) lowercased with dot runs collapsed (no leading/trailing dots expected).
+     * ASCII is done in place; anything else goes through String.toLowerCase(Locale.ROOT).
+     */
+    private static String lowerCollapsingDots(CharSequence s, int from, int to) {
+        boolean clean = true;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) return trimDots(s.subSequence(from, to).toString().toLowerCase(Locale.ROOT));
+            if ((c >= 'A' && c <= 'Z') || (c == '.' && s.charAt(i - 1) == '.')) clean = false;
+        }
+        if (clean) return s.subSequence(from, to).toString();
+
+        char[] buf = new char[to - from];
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c == '.' && s.charAt(i - 1) == '.') continue;
+            buf[n++] = (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+        }
+        return new String(buf, 0, n);
+    }
+
+    /** Same as matching ^\\[.+\\]$ ('.' excludes line terminators). */
+    private static boolean isBracketed(CharSequence s, int from, int to) {
+        if (to - from < 3 || s.charAt(from) != '[' || s.charAt(to - 1) != ']') return false;
+        for (int i = from + 1; i < to - 1; i++) {
+            char c = s.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Dotted-quad IPv4 (octets 0-255, as in the old IPV4 pattern), treating a run of dots as one
+     * separator since the host has those collapsed.
+     */
+    private static boolean isIpv4(CharSequence s, int from, int to) {
+        int octets = 0;
+        int i = from;
+        while (true) {
+            int start = i;
+            while (i < to && i - start < 4 && s.charAt(i) >= '0' && s.charAt(i) <= '9') i++;
+            if (!isOctet(s, start, i)) return false;
+            if (++octets == 4) return i == to;
+            if (i == to || s.charAt(i) != '.') return false;
+            while (i < to && s.charAt(i) == '.') i++;
+        }
+    }
+
+    /** 25[0-5] | 2[0-4]\\d | 1?\\d?\\d */
+    private static boolean isOctet(CharSequence s, int start, int end) {
+        int len = end - start;
+        if (len == 1 || len == 2) return true;
+        if (len != 3) return false;
+        char a = s.charAt(start), b = s.charAt(start + 1), c = s.charAt(start + 2);
+        if (a == '1') return true;
+        if (a != '2') return false;
+        return b < '5' || (b == '5' && c <= '5');
+    }
+
+    private static int indexOf(CharSequence s, char ch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == ch) return i;
+        }
+        return to;
     }
 }
@@ -51,4 +51,10 @@ public final class DomainStore {
         domains.setBoolean(domain, true);
         return true;
     }
+
+    /** Undo {@link #markIfNew} (its RDAP lookup was dropped), so the next sighting counts as new again. */
+    public synchronized void forget(String domain) {
+        if (domain == null || domain.isEmpty()) return;
+        domains.deleteBoolean(domain);
+    }
 }
@@ -25,10 +25,55 @@ public class Extension implements BurpExtension {
         // define the rdap client
         RdapClient rdapClient = new RdapClient(montoyaApi, rdap);
 
+        // lookups run on their own threads behind a bounded queue; doCheck returns right after extraction
+        RdapStage rdapStage = RdapStage.fromSystemProperty(rdapClient, store, log);
+
+        // one extractor for all scanner threads (PSL trie + host cache stay warm)
+        DomainExtractor extractor = new DomainExtractor();
+        BodyCache<List<String>> bodyCache = BodyCache.fromSystemProperty();
+        ChunkCache chunkCache = ChunkCache.fromSystemProperty(extractor);
+        ScanBudget budget = ScanBudget.fromSystemProperty();
+
+        // opt-in: follow sourceMappingURL of JS responses on a background queue
+        SourceMapFetcher sourceMaps = SourceMapFetcher.fromSystemProperty(montoyaApi, extractor);
+
+        // counters/caches are logged every few minutes and once more on unload
+        Metrics metrics = new Metrics();
+        if (extractor.hostCache() != null) extractor.hostCache().exportTo(metrics, "hostCache");
+        if (extractor.contextStats() != null) extractor.contextStats().exportTo(metrics, "contexts");
+        if (bodyCache != null) bodyCache.exportTo(metrics, "bodyCache");
+        if (chunkCache != null) chunkCache.exportTo(metrics, "chunkCache");
+        budget.exportTo(metrics, "budget");
+        if (sourceMaps != null) sourceMaps.exportTo(metrics, "sourceMaps");
+        rdapStage.exportTo(metrics, "rdap");
+        rdapClient.exportTo(metrics, "rdap.client");
+
+        // scanner (default): passive scan check; live: HTTP handler on proxy traffic; both: the two together
+        LiveTrafficHandler.Mode mode = LiveTrafficHandler.Mode.fromSystemProperty(log);
+        ResponseLoggerPassiveCheck check = new ResponseLoggerPassiveCheck(montoyaApi, store, rdapStage, extractor,
+                bodyCache, chunkCache, sourceMaps, budget);
+        LiveTrafficHandler live = mode.live() ? LiveTrafficHandler.fromSystemProperty(check, log) : null;
+        if (live != null) live.exportTo(metrics, "live");
+
+        metrics.startLogging(log, Metrics.intervalFromSystemProperty());
+        montoyaApi.extension().registerUnloadingHandler(() -> {
+            if (live != null) live.shutdown();
+            if (sourceMaps != null) sourceMaps.shutdown();
+            rdapStage.shutdown();
+            rdapClient.shutdown();
+            metrics.stop();
+            log.logToOutput(metrics.snapshot());
+        });
+
+        rdapStage.start(check::onClaimable);
 //        register the response-logging scanning service
-        montoyaApi.scanner().registerPassiveScanCheck(
-                new ResponseLoggerPassiveCheck(montoyaApi, store, rdapClient),
-                ScanCheckType.PER_REQUEST // invoke once per request/response
-        );
+        if (mode.scanner()) {
+            montoyaApi.scanner().registerPassiveScanCheck(
+                    check,
+                    ScanCheckType.PER_REQUEST // invoke once per request/response
+            );
+        }
+        // live traffic is copied and scanned in the background; the handler returns at once
+        if (live != null) montoyaApi.http().registerHttpHandler(live);
     }
 }
\ No newline at end of file
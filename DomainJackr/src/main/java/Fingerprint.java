@@ -0,0 +1,84 @@
+// Fingerprint.java
+// 128-bit non-cryptographic content fingerprint (MurmurHash3 x64/128) used as the BodyCache key.
+
+import burp.api.montoya.core.ByteArray;
+
+/**
+ * Identifies a response body (or a chunk of one) by content: two 64-bit hash halves plus the length. A collision needs
+ * two bodies of the same length agreeing on all 128 bits, which is not a concern for a result cache
+ * (nothing security-relevant is keyed on it).
+ */
+record Fingerprint(long hi, long lo, int length) {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final long SEED = 0x9e3779b97f4a7c15L;
+
+    /** Hash of the bytes in {@code body}, read in place (16 bytes per round). */
+    static Fingerprint of(ByteArray body) {
+        return of(body, 0, body.length());
+    }
+
+    /** Hash of {@code body[from, to)}. */
+    static Fingerprint of(ByteArray body, int from, int to) {
+        final int len = to - from;
+        long h1 = SEED, h2 = SEED;
+
+        int i = from;
+        for (; i + 16 <= to; i += 16) {
+            h1 ^= mixK1(le64(body, i, 8));
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(le64(body, i + 8, 8));
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int rem = to - i;
+        if (rem > 8) h2 ^= mixK2(le64(body, i + 8, rem - 8));
+        if (rem > 0) h1 ^= mixK1(le64(body, i, Math.min(rem, 8)));
+
+        h1 ^= len;
+        h2 ^= len;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new Fingerprint(h1, h2, len);
+    }
+
+    /**
+     * Same content read differently (content mode, tokenizer state) must not share a cache entry:
+     * folds {@code tag} into the hash. Tag 0 is the plain fingerprint.
+     */
+    Fingerprint tagged(long tag) {
+        return tag == 0 ? this : new Fingerprint(hi ^ fmix(tag * C1), lo, length);
+    }
+
+    // ---- helpers ----
+
+    /** Little-endian long from {@code count} (1..8) bytes at {@code at}. */
+    private static long le64(ByteArray b, int at, int count) {
+        long v = 0;
+        for (int k = count - 1; k >= 0; k--) v = (v << 8) | (b.getByte(at + k) & 0xFFL);
+        return v;
+    }
+
+    private static long mixK1(long k) {
+        return Long.rotateLeft(k * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k) {
+        return Long.rotateLeft(k * C2, 33) * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,287 @@
+// HeaderExtractor.java
+// Structured domain extraction from response headers, walked name by name from the header list.
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Each header name is looked up in a precomputed table (open addressing on a case-insensitive hash;
+ * the name is never lowercased or copied) and the value is parsed the way that header is defined:
+ *
+ * <ul>
+ *   <li>{@code Host}, {@code X-Forwarded-Host}: authorities;</li>
+ *   <li>{@code Origin}, {@code Referer}, {@code Location}, {@code Content-Location},
+ *       {@code Access-Control-Allow-Origin}, {@code Timing-Allow-Origin}: URLs (absolute or {@code //host});</li>
+ *   <li>{@code Link}: every {@code <URI-reference>};</li>
+ *   <li>{@code Refresh}: the {@code url=} part of {@code 5; url=...};</li>
+ *   <li>{@code Set-Cookie}: the {@code Domain=} attribute;</li>
+ *   <li>{@code Content-Security-Policy(-Report-Only)}: the source list of every directive, and {@code report-uri};</li>
+ *   <li>{@code Report-To}, {@code NEL}: the string values of their JSON, where they are URLs;</li>
+ *   <li>{@code Reporting-Endpoints}: its quoted URLs;</li>
+ *   <li>{@code Alt-Svc}: the host of each quoted alt-authority.</li>
+ * </ul>
+ *
+ * Any other header value goes through the generic body contexts (URL, {@code //host}, email, CSS, CSP).
+ * Values are read in place; only the hosts found are turned into Strings.
+ */
+final class HeaderExtractor {
+
+    enum Kind { AUTHORITY, URL, LINK, REFRESH, SET_COOKIE, CSP, REPORTING_JSON, REPORTING_ENDPOINTS, ALT_SVC }
+
+    private static final int TABLE_SIZE = 64; // power of two, well above twice the entries
+    private static final String[] NAMES = new String[TABLE_SIZE];
+    private static final Kind[] KINDS = new Kind[TABLE_SIZE];
+    static {
+        put("host", Kind.AUTHORITY);
+        put("x-forwarded-host", Kind.AUTHORITY);
+        put("origin", Kind.URL);
+        put("referer", Kind.URL);
+        put("location", Kind.URL);
+        put("content-location", Kind.URL);
+        put("access-control-allow-origin", Kind.URL);
+        put("timing-allow-origin", Kind.URL);
+        put("link", Kind.LINK);
+        put("refresh", Kind.REFRESH);
+        put("set-cookie", Kind.SET_COOKIE);
+        put("content-security-policy", Kind.CSP);
+        put("content-security-policy-report-only", Kind.CSP);
+        put("x-content-security-policy", Kind.CSP);
+        put("x-webkit-csp", Kind.CSP);
+        put("report-to", Kind.REPORTING_JSON);
+        put("nel", Kind.REPORTING_JSON);
+        put("reporting-endpoints", Kind.REPORTING_ENDPOINTS);
+        put("alt-svc", Kind.ALT_SVC);
+    }
+
+    // Contexts for headers without a structured parser (no header-line context: the name is not scanned).
+    private static final int GENERIC = ContextScanner.ALL & ~ContextScanner.bit(ContextScanner.Context.HEADER);
+
+    // CSP directives whose values are not source lists (names, flags, MIME types).
+    private static final String[] CSP_NON_SOURCE = {
+            "sandbox", "report-to", "plugin-types", "trusted-types", "require-trusted-types-for",
+            "upgrade-insecure-requests", "block-all-mixed-content"
+    };
+
+    private final DomainExtractor extractor;
+
+    HeaderExtractor(DomainExtractor extractor) {
+        this.extractor = extractor;
+    }
+
+    /** The kind of value header {@code name} carries, or null for headers without a structured parser. */
+    static Kind kindOf(String name) {
+        if (name == null) return null;
+        int slot = hashIgnoreCase(name) & (TABLE_SIZE - 1);
+        while (NAMES[slot] != null) {
+            if (NAMES[slot].equalsIgnoreCase(name)) return KINDS[slot];
+            slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+        return null;
+    }
+
+    /** Registrable domains in one header, added to {@code out}. */
+    void extractInto(String name, String value, Set<String> out) {
+        if (value == null || value.isEmpty()) return;
+        Kind kind = kindOf(name);
+        if (kind == null) {
+            extractor.extractInto(value, GENERIC, out);
+            return;
+        }
+        // Counted (and switched off) as the HEADER context, CSP policies as CSP
+        ContextScanner.Context context = kind == Kind.CSP ? ContextScanner.Context.CSP : ContextScanner.Context.HEADER;
+        if (!DomainExtractor.isEnabled(context)) return;
+        long start = extractor.clock();
+        extractStructured(kind, context, value, out);
+        extractor.elapsed(context, start);
+    }
+
+    private void extractStructured(Kind kind, ContextScanner.Context context, String value, Set<String> out) {
+        final int n = value.length();
+        switch (kind) {
+            case AUTHORITY -> {
+                for (int from = 0, to; from < n; from = to + 1) {
+                    to = indexOf(value, ',', from, n);
+                    addAuthority(context, value, from, to, out);
+                }
+            }
+            case URL -> {
+                for (int from = 0, to; from < n; from = to + 1) {
+                    to = from;
+                    while (to < n && value.charAt(to) != ',' && !isSpace(value.charAt(to))) to++;
+                    addUrl(context, value, from, to, out);
+                }
+            }
+            case LINK -> {
+                for (int lt = value.indexOf('<'); lt != -1; lt = value.indexOf('<', lt + 1)) {
+                    int gt = value.indexOf('>', lt + 1);
+                    if (gt == -1) break;
+                    addUrl(context, value, lt + 1, gt, out);
+                    lt = gt;
+                }
+            }
+            case REFRESH -> refresh(value, out);
+            case SET_COOKIE -> setCookieDomain(value, out);
+            case CSP -> csp(value, out);
+            case REPORTING_JSON -> reportingJson(value, out);
+            case REPORTING_ENDPOINTS -> {
+                for (int q = value.indexOf('"'); q != -1; ) {
+                    int end = value.indexOf('"', q + 1);
+                    if (end == -1) break;
+                    addUrl(context, value, q + 1, end, out);
+                    q = value.indexOf('"', end + 1);
+                }
+            }
+            case ALT_SVC -> {
+                // h3=":443"; ma=86400, h2="alt.example.com:443" (an empty host means the same origin)
+                for (int q = value.indexOf('"'); q != -1; ) {
+                    int end = value.indexOf('"', q + 1);
+                    if (end == -1) break;
+                    addAuthority(context, value, q + 1, end, out);
+                    q = value.indexOf('"', end + 1);
+                }
+            }
+        }
+    }
+
+    // ---- structured values ----
+
+    /** {@code 5; url=https://...} (the URL may be quoted, "url" in any case, spaces anywhere). */
+    private void refresh(String v, Set<String> out) {
+        int n = v.length();
+        int i = indexOf(v, ';', 0, n);
+        if (i == n) i = indexOf(v, ',', 0, n); // some servers use a comma
+        if (i == n) return;
+        i = skipSpaces(v, i + 1, n);
+        if (i + 3 <= n && v.regionMatches(true, i, "url", 0, 3)) {
+            int eq = skipSpaces(v, i + 3, n);
+            if (eq < n && v.charAt(eq) == '=') i = skipSpaces(v, eq + 1, n);
+        }
+        int end = n;
+        if (i < n && (v.charAt(i) == '\'' || v.charAt(i) == '"')) {
+            end = indexOf(v, v.charAt(i), i + 1, n);
+            i++;
+        }
+        addUrl(ContextScanner.Context.HEADER, v, i, end, out);
+    }
+
+    /** The {@code Domain} attribute of a cookie ({@code Domain=.example.com}). */
+    private void setCookieDomain(String v, Set<String> out) {
+        int n = v.length();
+        for (int from = indexOf(v, ';', 0, n) + 1, to; from < n; from = to + 1) {
+            to = indexOf(v, ';', from, n);
+            int a = skipSpaces(v, from, to);
+            if (a + 6 <= to && v.regionMatches(true, a, "domain", 0, 6)) {
+                int eq = skipSpaces(v, a + 6, to);
+                if (eq < to && v.charAt(eq) == '=') addAuthority(ContextScanner.Context.HEADER, v, eq + 1, to, out);
+            }
+        }
+    }
+
+    /** Every directive's source list (all of them, not only the *-src ones) plus report-uri. */
+    private void csp(String v, Set<String> out) {
+        int n = v.length();
+        for (int from = 0, to; from < n; from = to + 1) {
+            to = from;
+            while (to < n && v.charAt(to) != ';' && v.charAt(to) != ',') to++; // ',' joins policies
+            int nameStart = skipSpaces(v, from, to), nameEnd = nameStart;
+            while (nameEnd < to && !isSpace(v.charAt(nameEnd))) nameEnd++;
+            if (nameEnd == nameStart || isNonSourceDirective(v, nameStart, nameEnd)) continue;
+            boolean reportUri = nameEnd - nameStart == 10 && v.regionMatches(true, nameStart, "report-uri", 0, 10);
+
+            for (int t = skipSpaces(v, nameEnd, to), e; t < to; t = skipSpaces(v, e, to)) {
+                e = t;
+                while (e < to && !isSpace(v.charAt(e))) e++;
+                if (reportUri) {
+                    addUrl(ContextScanner.Context.CSP, v, t, e, out);
+                } else {
+                    extractor.collectHost(ContextScanner.Context.CSP, extractor.hostFromCspToken(v.substring(t, e)), out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Report-To / NEL: one or more JSON objects (comma-separated when the header was folded). URLs sit in
+     * string values; anything unparsable is scanned like any other header.
+     */
+    private void reportingJson(String v, Set<String> out) {
+        try {
+            JsonStrings.forEach("[" + v + "]", s -> addUrl(ContextScanner.Context.HEADER, s, 0, s.length(), out));
+        } catch (IOException | IllegalStateException e) {
+            extractor.extractInto(v, GENERIC, out);
+        }
+    }
+
+    // ---- helpers ----
+
+    /** Host of an absolute ({@code scheme://}) or scheme-relative URL in s[from, to); relative ones have none. */
+    private void addUrl(ContextScanner.Context context, CharSequence s, int from, int to, Set<String> out) {
+        from = skipSpaces(s, from, to);
+        int authority;
+        if (from + 1 < to && s.charAt(from) == '/' && s.charAt(from + 1) == '/') {
+            authority = from + 2;
+        } else {
+            int p = from;
+            while (p < to && isSchemeChar(s.charAt(p))) p++;
+            if (p == from || p + 2 >= to || s.charAt(p) != ':' || s.charAt(p + 1) != '/' || s.charAt(p + 2) != '/') {
+                return;
+            }
+            authority = p + 3;
+        }
+        int end = authority;
+        while (end < to && !isAuthorityEnd(s.charAt(end))) end++;
+        addAuthority(context, s, authority, end, out);
+    }
+
+    private void addAuthority(ContextScanner.Context context, CharSequence s, int from, int to, Set<String> out) {
+        extractor.collectHost(context, DomainExtractor.hostFromAuthority(s, from, to), out);
+    }
+
+    private static boolean isNonSourceDirective(String v, int from, int to) {
+        for (String name : CSP_NON_SOURCE) {
+            if (to - from == name.length() && v.regionMatches(true, from, name, 0, name.length())) return true;
+        }
+        return false;
+    }
+
+    private static void put(String name, Kind kind) {
+        int slot = hashIgnoreCase(name) & (TABLE_SIZE - 1);
+        while (NAMES[slot] != null) slot = (slot + 1) & (TABLE_SIZE - 1);
+        NAMES[slot] = name;
+        KINDS[slot] = kind;
+    }
+
+    /** String.hashCode of the ASCII-lowercased name, spread; non-ASCII names simply miss the table. */
+    private static int hashIgnoreCase(String s) {
+        int h = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            h = 31 * h + (c >= 'A' && c <= 'Z' ? c + 32 : c);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean isSchemeChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '+' || c == '-'
+                || c == '.';
+    }
+
+    private static boolean isAuthorityEnd(char c) {
+        return c == '/' || c == '?' || c == '#' || c == '"' || c == '\'' || c == '<' || c == '>' || c == ','
+                || c == ';' || isSpace(c);
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static int skipSpaces(CharSequence s, int from, int to) {
+        while (from < to && isSpace(s.charAt(from))) from++;
+        return from;
+    }
+
+    private static int indexOf(String s, char c, int from, int to) {
+        int i = s.indexOf(c, from);
+        return i == -1 || i > to ? to : i;
+    }
+}
@@ -0,0 +1,107 @@
+// HostCache.java
+// Bounded, thread-safe raw host -> registrable domain cache (with negative entries).
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-striped LRU: the key space is split over a fixed number of access-ordered LinkedHashMaps,
+ * each guarded by its own monitor and capped at its share of the total size. Scanner threads only
+ * contend when they hit the same stripe, and eviction is O(1) (drop the stripe's eldest entry).
+ */
+final class HostCache {
+    /** Stored for hosts that do not reduce to a registrable domain. */
+    static final String NOT_REGISTRABLE = "";
+
+    static final int DEFAULT_SIZE = 16_384;
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    HostCache(int maxEntries) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be > 0");
+        int perStripe = Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe(perStripe);
+    }
+
+    /** Size from -Ddomainjackr.hostCacheSize (default 16384); null when set to 0 (cache disabled). */
+    static HostCache fromSystemProperty() {
+        int size = Integer.getInteger("domainjackr.hostCacheSize", DEFAULT_SIZE);
+        return size > 0 ? new HostCache(size) : null;
+    }
+
+    /** Cached root, {@link #NOT_REGISTRABLE}, or null on a miss. */
+    String get(String host) {
+        Stripe s = stripeFor(host);
+        String v;
+        synchronized (s) {
+            v = s.get(host);
+        }
+        if (v != null) hits.increment();
+        else misses.increment();
+        return v;
+    }
+
+    void put(String host, String root) {
+        Stripe s = stripeFor(host);
+        synchronized (s) {
+            s.put(host, root == null ? NOT_REGISTRABLE : root);
+        }
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    int size() {
+        int n = 0;
+        for (Stripe s : stripes) {
+            synchronized (s) {
+                n += s.size();
+            }
+        }
+        return n;
+    }
+
+    /** Publish the counters (and the hit ratio in percent) under {@code prefix}. */
+    void exportTo(Metrics metrics, String prefix) {
+        metrics.gauge(prefix + ".hits", this::hits);
+        metrics.gauge(prefix + ".misses", this::misses);
+        metrics.gauge(prefix + ".hitRatioPct", () -> Metrics.percent(hits(), hits() + misses()));
+        metrics.gauge(prefix + ".evictions", this::evictions);
+        metrics.gauge(prefix + ".size", this::size);
+    }
+
+    private Stripe stripeFor(String host) {
+        int h = host.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private final class Stripe extends LinkedHashMap<String, String> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(Math.min(capacity, 1024) * 4 / 3 + 1, 0.75f, true); // access order => LRU
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            if (size() <= capacity) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+}
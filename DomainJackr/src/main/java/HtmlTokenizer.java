@@ -0,0 +1,234 @@
+// HtmlTokenizer.java
+// Resumable HTML tokenizer for DomainExtractor's HTML mode (attribute values, text, script/style bodies).
+
+/**
+ * Splits markup into the parts worth scanning and says what each one is: URL-bearing attribute
+ * values (href, src, srcset, action, data-*, ...), {@code content} attributes (a URL, or a policy
+ * for {@code http-equiv="Content-Security-Policy"}), style attributes and {@code <style>} bodies, event
+ * handlers and {@code <script>} bodies, comments (commented-out markup and conditional comments) and
+ * text nodes. Every other attribute, tag names and declarations are skipped.
+ *
+ * <p>Tokenizing can stop between tokens and resume later: {@link #tokenize} takes the state the
+ * previous piece ended in and returns the new one (a small int, so it can be part of a cache key).
+ * Whitespace and attribute values are safe places to stop, which covers every line break; a piece
+ * ending inside a tag name, an attribute name, a comment delimiter or an end tag loses that token.
+ */
+final class HtmlTokenizer {
+
+    enum Part { URL, CSS, SCRIPT, COMMENT, CONTENT, TEXT }
+
+    /** Receives each part as a range into the tokenized text. */
+    interface Sink {
+        void accept(Part part, CharSequence text, int start, int end);
+    }
+
+    /** State at the start of a document. */
+    static final int INITIAL = 0;
+
+    // state = where | tag << 4 | attr << 8; attr is 0 (skip) or Part.ordinal() + 1
+    private static final int TEXT = 0, IN_TAG = 1, DQ_VALUE = 2, SQ_VALUE = 3, SCRIPT_BODY = 4, STYLE_BODY = 5,
+            COMMENT = 6, DECLARATION = 7, AFTER_NAME = 8, BEFORE_VALUE = 9;
+    private static final int TAG_OTHER = 0, TAG_SCRIPT = 1, TAG_STYLE = 2;
+    private static final Part[] PARTS = Part.values();
+
+    private static final String[] URL_ATTRIBUTES = {
+            "href", "src", "srcset", "imagesrcset", "action", "formaction", "poster", "cite", "background",
+            "data", "manifest", "ping", "codebase", "longdesc", "icon", "xlink:href", "srcdoc", "lowsrc"
+    };
+
+    private HtmlTokenizer() {}
+
+    /** Tokenize all of {@code s}, starting in {@code state}; returns the state at the end. */
+    static int tokenize(CharSequence s, int state, Sink sink) {
+        final int n = s.length();
+        int where = state & 0xF;
+        int tag = (state >>> 4) & 0xF;
+        int attr = (state >>> 8) & 0xF;
+
+        int i = 0;
+        while (i < n) {
+            switch (where) {
+                case TEXT -> {
+                    int lt = indexOf(s, '<', i, n);
+                    if (lt > i) sink.accept(Part.TEXT, s, i, lt);
+                    if (lt + 1 >= n) {
+                        i = n;
+                        break;
+                    }
+                    char c = s.charAt(lt + 1);
+                    if (c == '!' && regionMatches(s, lt + 2, "--")) {
+                        where = COMMENT;
+                        i = lt + 4;
+                    } else if (c == '!' || c == '/' || c == '?') {
+                        where = DECLARATION; // doctype, end tag, processing instruction: nothing to scan
+                        i = lt + 2;
+                    } else if (isAsciiLetter(c)) {
+                        int k = lt + 1;
+                        while (k < n && !isSpace(s.charAt(k)) && s.charAt(k) != '/' && s.charAt(k) != '>') k++;
+                        tag = regionIs(s, lt + 1, k, "script") ? TAG_SCRIPT
+                                : regionIs(s, lt + 1, k, "style") ? TAG_STYLE : TAG_OTHER;
+                        where = IN_TAG;
+                        i = k;
+                    } else {
+                        i = lt + 1; // a literal '<'
+                    }
+                }
+                case IN_TAG -> {
+                    while (i < n && (isSpace(s.charAt(i)) || s.charAt(i) == '/')) i++;
+                    if (i >= n) break;
+                    if (s.charAt(i) == '>') {
+                        where = tag == TAG_SCRIPT ? SCRIPT_BODY : tag == TAG_STYLE ? STYLE_BODY : TEXT;
+                        tag = TAG_OTHER;
+                        i++;
+                        break;
+                    }
+                    int k = i;
+                    while (k < n && !isSpace(s.charAt(k)) && "=>/".indexOf(s.charAt(k)) < 0) k++;
+                    attr = attributeKind(s, i, k);
+                    where = AFTER_NAME;
+                    i = k;
+                }
+                case AFTER_NAME -> {
+                    i = skipSpaces(s, i, n);
+                    if (i >= n) break;
+                    if (s.charAt(i) == '=') {
+                        where = BEFORE_VALUE;
+                        i++;
+                    } else {
+                        attr = 0; // boolean attribute
+                        where = IN_TAG;
+                    }
+                }
+                case BEFORE_VALUE -> {
+                    i = skipSpaces(s, i, n);
+                    if (i >= n) break;
+                    char q = s.charAt(i);
+                    if (q == '"' || q == '\'') {
+                        where = q == '"' ? DQ_VALUE : SQ_VALUE;
+                        i++;
+                    } else {
+                        int end = i;
+                        while (end < n && !isSpace(s.charAt(end)) && s.charAt(end) != '>') end++;
+                        if (attr != 0 && end > i) sink.accept(PARTS[attr - 1], s, i, end);
+                        attr = 0;
+                        where = IN_TAG;
+                        i = end;
+                    }
+                }
+                case DQ_VALUE, SQ_VALUE -> {
+                    int close = indexOf(s, where == DQ_VALUE ? '"' : '\'', i, n);
+                    if (attr != 0 && close > i) sink.accept(PARTS[attr - 1], s, i, close);
+                    if (close < n) {
+                        where = IN_TAG;
+                        attr = 0;
+                        i = close + 1;
+                    } else {
+                        i = n; // value continues in the next piece
+                    }
+                }
+                case SCRIPT_BODY, STYLE_BODY -> {
+                    String endTag = where == SCRIPT_BODY ? "</script" : "</style";
+                    int close = indexOfIgnoreCase(s, endTag, i, n);
+                    if (close > i) sink.accept(where == SCRIPT_BODY ? Part.SCRIPT : Part.CSS, s, i, close);
+                    if (close < n) {
+                        where = DECLARATION;
+                        i = close + endTag.length();
+                    } else {
+                        i = n;
+                    }
+                }
+                case COMMENT -> {
+                    int close = indexOf(s, "-->", i, n);
+                    if (close > i) sink.accept(Part.COMMENT, s, i, close);
+                    if (close < n) {
+                        where = TEXT;
+                        i = close + 3;
+                    } else {
+                        i = n;
+                    }
+                }
+                default -> { // DECLARATION
+                    int gt = indexOf(s, '>', i, n);
+                    if (gt < n) where = TEXT;
+                    i = gt + 1;
+                }
+            }
+        }
+        return where | tag << 4 | attr << 8;
+    }
+
+    // ---- helpers ----
+
+    /** Part.ordinal() + 1 for attributes worth scanning, 0 for the rest. */
+    private static int attributeKind(CharSequence s, int from, int to) {
+        int len = to - from;
+        if (len > 2 && (s.charAt(from) | 0x20) == 'o' && (s.charAt(from + 1) | 0x20) == 'n') {
+            return Part.SCRIPT.ordinal() + 1; // onclick, onload, ...
+        }
+        if (regionIs(s, from, to, "style")) return Part.CSS.ordinal() + 1;
+        if (regionIs(s, from, to, "content")) return Part.CONTENT.ordinal() + 1;
+        if (len > 5 && regionMatchesIgnoreCase(s, from, "data-")) return Part.URL.ordinal() + 1;
+        for (String name : URL_ATTRIBUTES) {
+            if (regionIs(s, from, to, name)) return Part.URL.ordinal() + 1;
+        }
+        return 0;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static int skipSpaces(CharSequence s, int p, int n) {
+        while (p < n && isSpace(s.charAt(p))) p++;
+        return p;
+    }
+
+    private static int indexOf(CharSequence s, char ch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == ch) return i;
+        }
+        return to;
+    }
+
+    private static int indexOf(CharSequence s, String literal, int from, int to) {
+        for (int i = indexOf(s, literal.charAt(0), from, to); i < to; i = indexOf(s, literal.charAt(0), i + 1, to)) {
+            if (regionMatches(s, i, literal)) return i;
+        }
+        return to;
+    }
+
+    private static int indexOfIgnoreCase(CharSequence s, String lower, int from, int to) {
+        for (int i = indexOf(s, lower.charAt(0), from, to); i < to; i = indexOf(s, lower.charAt(0), i + 1, to)) {
+            if (regionMatchesIgnoreCase(s, i, lower)) return i;
+        }
+        return to;
+    }
+
+    private static boolean regionMatches(CharSequence s, int offset, String literal) {
+        if (offset + literal.length() > s.length()) return false;
+        for (int k = 0; k < literal.length(); k++) {
+            if (s.charAt(offset + k) != literal.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    /** s[from, to) equals the lowercase {@code name}, ignoring ASCII case. */
+    private static boolean regionIs(CharSequence s, int from, int to, String name) {
+        return to - from == name.length() && regionMatchesIgnoreCase(s, from, name);
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence s, int offset, String lower) {
+        int len = lower.length();
+        if (offset < 0 || offset + len > s.length()) return false;
+        for (int k = 0; k < len; k++) {
+            char c = s.charAt(offset + k);
+            if (c >= 'A' && c <= 'Z') c = (char) (c + 32);
+            if (c != lower.charAt(k)) return false;
+        }
+        return true;
+    }
+}
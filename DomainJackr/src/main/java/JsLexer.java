@@ -0,0 +1,401 @@
+// JsLexer.java
+// Resumable JavaScript literal lexer for DomainExtractor's JS mode (string, template and regex literal contents).
+
+import java.util.Arrays;
+
+/**
+ * Walks a script and reports only the contents of string, template and regular-expression literals;
+ * identifiers, operators and comments are skipped. Whether a {@code /} starts a regex or is a division
+ * is decided from the token before it (an identifier, number, {@code )} or {@code ]} means division,
+ * keywords such as {@code return} and {@code typeof} mean regex). Strings and regexes cannot span
+ * lines, so a wrong guess is dropped at the next line break.
+ *
+ * <p>Like {@link HtmlTokenizer}, lexing can stop between tokens and resume: {@link #tokenize} takes
+ * and returns a small int state. Line breaks are always safe; a piece ending inside an identifier may
+ * misjudge a regex right after it. Templates nested inside {@code ${...}} keep a stack of brace depths,
+ * one per open expression; within a piece it is unbounded, across pieces the innermost
+ * {@code MAX_LEVELS} levels (each up to {@code MAX_BRACES} deep) are carried in the state.
+ */
+final class JsLexer {
+
+    enum Part { STRING, REGEX }
+
+    /** Receives each literal's contents as a range; {@code escaped} if it contains a backslash. */
+    interface Sink {
+        void accept(Part part, CharSequence text, int start, int end, boolean escaped);
+    }
+
+    /** State at the start of a script. */
+    static final int INITIAL = 0;
+
+    // state = where | flags | levels << LEVELS_SHIFT | braces of level k (0 = innermost) << BRACES_SHIFT + k * BRACES_BITS
+    private static final int CODE = 0, SQ = 1, DQ = 2, TEMPLATE = 3, REGEX = 4, REGEX_CLASS = 5,
+            LINE_COMMENT = 6, BLOCK_COMMENT = 7;
+    private static final int WHERE_MASK = 0x7;
+    private static final int DIVISION = 1 << 3;       // in CODE: a '/' here would be division
+    private static final int PENDING_ESCAPE = 1 << 4; // previous piece ended on a backslash in a literal
+    private static final int PENDING_FIRST = 1 << 5;  // previous piece ended on the '$' of "${", the '/' of
+                                                      // "//" or "/*", or the '*' of "*/"
+    private static final int LEVELS_SHIFT = 6;        // open ${...} expressions, bits 6-8
+    private static final int MAX_LEVELS = 4;
+    private static final int BRACES_SHIFT = 9;        // then MAX_LEVELS depths of BRACES_BITS each, bits 9-28
+    private static final int BRACES_BITS = 5;
+    private static final int MAX_BRACES = (1 << BRACES_BITS) - 1;
+
+    // After these, '/' starts a regex even though they are identifiers.
+    private static final String[] REGEX_KEYWORDS = {
+            "return", "typeof", "instanceof", "in", "of", "new", "delete", "void", "throw", "case", "do", "else",
+            "yield", "await"
+    };
+
+    // Characters that can change state in CODE; everything else is skipped in a tight loop.
+    private static final boolean[] CODE_SPECIAL = new boolean[128];
+    static {
+        for (char c : "'\"`/{}".toCharArray()) CODE_SPECIAL[c] = true;
+    }
+
+    private final CharSequence s;
+    private final int n;
+    private final Sink sink;
+    private int where;
+    private boolean division;
+    private boolean pendingEscape;
+    private boolean pendingFirst;
+    private int levels;   // open ${...} expressions
+    private int braces;   // '{' open in the innermost one
+    private int[] outer;  // braces of the enclosing ones, outermost first (levels - 1 used)
+
+    private JsLexer(CharSequence s, int state, Sink sink) {
+        this.s = s;
+        this.n = s.length();
+        this.sink = sink;
+        this.where = state & WHERE_MASK;
+        this.division = (state & DIVISION) != 0;
+        this.pendingEscape = (state & PENDING_ESCAPE) != 0;
+        this.pendingFirst = (state & PENDING_FIRST) != 0;
+        this.levels = (state >>> LEVELS_SHIFT) & 0x7;
+        this.braces = levels > 0 ? packedBraces(state, 0) : 0;
+        if (levels > 1) {
+            outer = new int[levels];
+            for (int k = 1; k < levels; k++) outer[levels - 1 - k] = packedBraces(state, k);
+        }
+    }
+
+    /** Lex all of {@code s}, starting in {@code state}; returns the state at the end. */
+    static int tokenize(CharSequence s, int state, Sink sink) {
+        return new JsLexer(s, state, sink).run();
+    }
+
+    private int run() {
+        int i = 0;
+        while (i < n) {
+            i = switch (where) {
+                case CODE -> code(i);
+                case SQ, DQ, TEMPLATE -> literal(i);
+                case REGEX, REGEX_CLASS -> regex(i);
+                case LINE_COMMENT -> lineComment(i);
+                default -> blockComment(i);
+            };
+        }
+        if (where == CODE && !pendingFirst) division = !regexAllowed(s, n, division);
+        int state = where | (division ? DIVISION : 0)
+                | (pendingEscape ? PENDING_ESCAPE : 0) | (pendingFirst ? PENDING_FIRST : 0);
+        int kept = Math.min(levels, MAX_LEVELS); // deeper (outer) levels are lost at a cut
+        state |= kept << LEVELS_SHIFT;
+        for (int k = 0; k < kept; k++) {
+            int depth = k == 0 ? braces : outer[levels - 1 - k];
+            state |= Math.min(depth, MAX_BRACES) << (BRACES_SHIFT + k * BRACES_BITS);
+        }
+        return state;
+    }
+
+    private int code(int i) {
+        if (pendingFirst) {
+            pendingFirst = false;
+            char c = s.charAt(i);
+            if (c == '/' || c == '*') {
+                where = c == '/' ? LINE_COMMENT : BLOCK_COMMENT;
+                return i + 1;
+            }
+            if (!division) {
+                where = REGEX; // the pending '/' opened it
+                return i;
+            }
+        }
+        char c = 0;
+        while (i < n && ((c = s.charAt(i)) >= 128 || !CODE_SPECIAL[c])) i++;
+        if (i >= n) return n;
+        switch (c) {
+            case '\'' -> where = SQ;
+            case '"' -> where = DQ;
+            case '`' -> where = TEMPLATE;
+            case '{' -> braces += levels > 0 ? 1 : 0;
+            case '}' -> {
+                if (levels > 0 && braces == 0) {
+                    leaveExpression();
+                } else if (braces > 0) {
+                    braces--;
+                }
+            }
+            default -> { // '/'
+                if (i + 1 == n) {
+                    pendingFirst = true;
+                    division = !regexAllowed(s, i, division);
+                    return n;
+                }
+                char next = s.charAt(i + 1);
+                if (next == '/') {
+                    where = LINE_COMMENT;
+                    return i + 2;
+                }
+                if (next == '*') {
+                    where = BLOCK_COMMENT;
+                    return i + 2;
+                }
+                if (regexAllowed(s, i, division)) where = REGEX;
+            }
+        }
+        return i + 1;
+    }
+
+    /** String or template literal contents up to the closing quote (or "${"). */
+    private int literal(int i) {
+        if (pendingFirst) {
+            pendingFirst = false;
+            if (s.charAt(i) == '{') {
+                enterExpression();
+                return i + 1;
+            }
+        }
+        final char quote = where == SQ ? '\'' : where == DQ ? '"' : '`';
+        final boolean template = where == TEMPLATE;
+        int start = i;
+        boolean escaped = pendingEscape;
+        if (pendingEscape) {
+            pendingEscape = false;
+            i++;
+        }
+        while (i < n) {
+            char c = s.charAt(i);
+            if (c == '\\') {
+                escaped = true;
+                if (i + 1 == n) {
+                    pendingEscape = true;
+                    i = n;
+                    break;
+                }
+                i += 2;
+            } else if (c == quote || (!template && (c == '\n' || c == '\r'))) {
+                // closed (or unterminated at a line break: give up on this literal)
+                if (i > start) sink.accept(Part.STRING, s, start, i, escaped);
+                where = CODE;
+                return i + 1;
+            } else if (template && c == '$') {
+                if (i + 1 == n) {
+                    pendingFirst = true; // "${" may straddle the pieces
+                    if (i > start) sink.accept(Part.STRING, s, start, i, escaped);
+                    return n;
+                }
+                if (s.charAt(i + 1) == '{') {
+                    if (i > start) sink.accept(Part.STRING, s, start, i, escaped);
+                    enterExpression();
+                    return i + 2;
+                }
+                i++;
+            } else {
+                i++;
+            }
+        }
+        if (n > start) sink.accept(Part.STRING, s, start, n, escaped);
+        return n;
+    }
+
+    /** "${" in a template: the enclosing expression's depth (if any) is saved for when it resumes. */
+    private void enterExpression() {
+        if (levels > 0) {
+            if (outer == null) outer = new int[4];
+            else if (levels > outer.length) outer = Arrays.copyOf(outer, outer.length * 2);
+            outer[levels - 1] = braces;
+        }
+        levels++;
+        braces = 0;
+        where = CODE;
+        division = false;
+    }
+
+    /** The '}' closing a "${": back in that template's text, with the enclosing depth restored. */
+    private void leaveExpression() {
+        levels--;
+        braces = levels > 0 ? outer[levels - 1] : 0;
+        where = TEMPLATE;
+    }
+
+    /** Regex literal body up to the closing '/' (flags are left to CODE). */
+    private int regex(int i) {
+        int start = i;
+        boolean escaped = pendingEscape;
+        if (pendingEscape) {
+            pendingEscape = false;
+            i++;
+        }
+        while (i < n) {
+            char c = s.charAt(i);
+            if (c == '\\') {
+                escaped = true;
+                if (i + 1 == n) {
+                    pendingEscape = true;
+                    i = n;
+                    break;
+                }
+                i += 2;
+            } else if (c == '\n' || c == '\r' || (c == '/' && where == REGEX)) {
+                if (i > start) sink.accept(Part.REGEX, s, start, i, escaped);
+                where = CODE;
+                return i + 1;
+            } else {
+                if (c == '[') where = REGEX_CLASS;
+                else if (c == ']') where = REGEX;
+                i++;
+            }
+        }
+        if (n > start) sink.accept(Part.REGEX, s, start, n, escaped);
+        return n;
+    }
+
+    private int lineComment(int i) {
+        while (i < n && s.charAt(i) != '\n' && s.charAt(i) != '\r') i++;
+        if (i < n) where = CODE;
+        return i;
+    }
+
+    private int blockComment(int i) {
+        if (pendingFirst) {
+            pendingFirst = false;
+            if (s.charAt(i) == '/') {
+                where = CODE;
+                return i + 1;
+            }
+        }
+        while (i < n && !(s.charAt(i) == '*' && i + 1 < n && s.charAt(i + 1) == '/')) i++;
+        if (i < n) {
+            where = CODE;
+            return i + 2;
+        }
+        if (s.charAt(n - 1) == '*') pendingFirst = true;
+        return n;
+    }
+
+    /**
+     * Contents of a literal with its escapes resolved (so {@code https:\/\/} and {@code https:\x2F\x2F}
+     * read as {@code https://}; unicode escapes too), written into {@code out} (cleared first).
+     */
+    static StringBuilder decode(CharSequence s, int from, int to, StringBuilder out) {
+        out.setLength(0);
+        int i = from;
+        while (i < to) {
+            char c = s.charAt(i);
+            if (c != '\\' || i + 1 >= to) {
+                out.append(c);
+                i++;
+                continue;
+            }
+            char e = s.charAt(i + 1);
+            i += 2;
+            switch (e) {
+                case 'x' -> {
+                    int v = hex(s, i, Math.min(i + 2, to), 2);
+                    if (v >= 0) {
+                        out.append((char) v);
+                        i += 2;
+                    } else {
+                        out.append(e);
+                    }
+                }
+                case 'u' -> {
+                    if (i < to && s.charAt(i) == '{') {
+                        int close = i + 1;
+                        while (close < to && close - i <= 7 && s.charAt(close) != '}') close++;
+                        int v = close < to && s.charAt(close) == '}' ? hex(s, i + 1, close, close - i - 1) : -1;
+                        if (v >= 0 && v <= Character.MAX_CODE_POINT) {
+                            out.appendCodePoint(v);
+                            i = close + 1;
+                        } else {
+                            out.append(e);
+                        }
+                    } else {
+                        int v = hex(s, i, Math.min(i + 4, to), 4);
+                        if (v >= 0) {
+                            out.append((char) v);
+                            i += 4;
+                        } else {
+                            out.append(e);
+                        }
+                    }
+                }
+                case 'n' -> out.append('\n');
+                case 'r' -> out.append('\r');
+                case 't' -> out.append('\t');
+                case '\n' -> { } // line continuation
+                case '\r' -> {
+                    if (i < to && s.charAt(i) == '\n') i++;
+                }
+                default -> out.append(e); // \/ \" \' \\ and identity escapes
+            }
+        }
+        return out;
+    }
+
+    // ---- helpers ----
+
+    /** Whether a '/' at {@code pos} starts a regex, judged by the token before it. */
+    private static boolean regexAllowed(CharSequence s, int pos, boolean divisionAtStart) {
+        int p = pos - 1;
+        while (p >= 0 && isSpace(s.charAt(p))) p--;
+        if (p < 0) return !divisionAtStart;
+        char c = s.charAt(p);
+        if (c == ')' || c == ']' || c == '"' || c == '\'' || c == '`') return false; // end of a value
+        if ((c == '+' || c == '-') && p > 0 && s.charAt(p - 1) == c) { // "a++ / 2": postfix ends the operand
+            int q = p - 2;
+            while (q >= 0 && isSpace(s.charAt(q))) q--;
+            return q < 0 || !(isIdentifierPart(s.charAt(q)) || s.charAt(q) == ')' || s.charAt(q) == ']');
+        }
+        if (!isIdentifierPart(c)) return true;
+        int end = p + 1;
+        while (p >= 0 && isIdentifierPart(s.charAt(p))) p--;
+        for (String keyword : REGEX_KEYWORDS) {
+            if (end - (p + 1) == keyword.length() && regionMatches(s, p + 1, keyword)) return true;
+        }
+        return false;
+    }
+
+    private static int packedBraces(int state, int level) {
+        return (state >>> (BRACES_SHIFT + level * BRACES_BITS)) & MAX_BRACES;
+    }
+
+    private static int hex(CharSequence s, int from, int to, int digits) {
+        if (to - from != digits) return -1;
+        int v = 0;
+        for (int k = from; k < to; k++) {
+            int d = Character.digit(s.charAt(k), 16);
+            if (d < 0) return -1;
+            v = v << 4 | d;
+        }
+        return v;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '$'
+                || c >= 0x80;
+    }
+
+    private static boolean regionMatches(CharSequence s, int offset, String literal) {
+        for (int k = 0; k < literal.length(); k++) {
+            if (s.charAt(offset + k) != literal.charAt(k)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,130 @@
+// JsonStrings.java
+// Streams the string tokens out of a JSON (or NDJSON) document with Gson's JsonReader, for DomainExtractor's JSON mode.
+
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Reports every string value and member name, unescaped; numbers, booleans, nulls and structure are
+ * skipped without being looked at. Memory is JsonReader's small buffer plus the current string, however
+ * large the document. A string that is itself a JSON document (an escaped payload inside a field) is
+ * parsed in turn, up to {@link #MAX_NESTING} levels, instead of being reported whole.
+ *
+ * <p>Lenient parsing, so NDJSON (one document per line) reads as a sequence of top-level values.
+ * Input that is not JSON at all makes {@link #forEach} throw; the caller falls back to plain text.
+ * A {@code stop} condition (the scan deadline) is polled every {@link #STOP_STRIDE} tokens, and
+ * between top-level values once a few tokens have gone by; reading ends quietly once it is true.
+ */
+final class JsonStrings {
+    static final int MAX_NESTING = 3;
+    static final int STOP_STRIDE = 4_096;
+    private static final int TOP_LEVEL_STRIDE = 64; // between top-level values (NDJSON records), poll sooner
+
+    private static final BooleanSupplier NEVER = () -> false;
+
+    private JsonStrings() {}
+
+    /** Every string token in {@code json}, in document order. */
+    static void forEach(CharSequence json, Consumer<String> sink) throws IOException {
+        forEach(json, sink, NEVER);
+    }
+
+    /** Same, until {@code stop} is true. */
+    static void forEach(CharSequence json, Consumer<String> sink, BooleanSupplier stop) throws IOException {
+        forEach(new CharSequenceReader(json), sink, stop);
+    }
+
+    /** Same, reading the document from {@code json} as it arrives (an inflating stream, say). */
+    static void forEach(Reader json, Consumer<String> sink, BooleanSupplier stop) throws IOException {
+        read(new JsonReader(json), sink, stop, 0);
+    }
+
+    private static void read(JsonReader reader, Consumer<String> sink, BooleanSupplier stop, int nesting)
+            throws IOException {
+        reader.setStrictness(Strictness.LENIENT);
+        for (int depth = 0, tokens = 0; ; tokens++) {
+            if (tokens >= STOP_STRIDE || (depth == 0 && tokens >= TOP_LEVEL_STRIDE)) {
+                if (stop.getAsBoolean()) return;
+                tokens = 0;
+            }
+            switch (reader.peek()) {
+                case BEGIN_ARRAY -> {
+                    reader.beginArray();
+                    depth++;
+                }
+                case END_ARRAY -> {
+                    reader.endArray();
+                    depth--;
+                }
+                case BEGIN_OBJECT -> {
+                    reader.beginObject();
+                    depth++;
+                }
+                case END_OBJECT -> {
+                    reader.endObject();
+                    depth--;
+                }
+                case NAME -> sink.accept(reader.nextName());
+                case STRING -> string(reader.nextString(), sink, stop, nesting);
+                case END_DOCUMENT -> {
+                    return;
+                }
+                default -> reader.skipValue(); // NUMBER, BOOLEAN, NULL
+            }
+        }
+    }
+
+    private static void string(String value, Consumer<String> sink, BooleanSupplier stop, int nesting) {
+        if (nesting < MAX_NESTING && looksLikeJson(value)) {
+            try {
+                read(new JsonReader(new StringReader(value)), sink, stop, nesting + 1);
+                return;
+            } catch (IOException | IllegalStateException e) {
+                // not JSON after all: report it as an ordinary string
+            }
+        }
+        sink.accept(value);
+    }
+
+    private static boolean looksLikeJson(String s) {
+        int from = 0, to = s.length() - 1;
+        while (from < to && Character.isWhitespace(s.charAt(from))) from++;
+        while (to > from && Character.isWhitespace(s.charAt(to))) to--;
+        if (to - from < 1) return false;
+        char first = s.charAt(from), last = s.charAt(to);
+        return (first == '{' && last == '}') || (first == '[' && last == ']');
+    }
+
+    /** Reader over a CharSequence (the JDK only has one for Strings). */
+    private static final class CharSequenceReader extends Reader {
+        private final CharSequence s;
+        private int pos;
+
+        CharSequenceReader(CharSequence s) {
+            this.s = s;
+        }
+
+        @Override
+        public int read(char[] buf, int off, int len) {
+            int n = Math.min(len, s.length() - pos);
+            if (n <= 0) return len == 0 ? 0 : -1;
+            if (s instanceof String str) {
+                str.getChars(pos, pos + n, buf, off);
+            } else {
+                for (int k = 0; k < n; k++) buf[off + k] = s.charAt(pos + k);
+            }
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
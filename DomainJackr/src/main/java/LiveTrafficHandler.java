@@ -0,0 +1,229 @@
+// LiveTrafficHandler.java
+// Opt-in HTTP handler: copies live responses onto a background pool for extraction, without Burp's scanner.
+
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.handler.HttpHandler;
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.handler.HttpResponseReceived;
+import burp.api.montoya.http.handler.RequestToBeSentAction;
+import burp.api.montoya.http.handler.ResponseReceivedAction;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.logging.Logging;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Passive scan checks only run when Burp's scanner picks an item up, behind the scanner's own queue.
+ * Registered with {@code api.http().registerHttpHandler}, this handler sees every response as it comes
+ * back instead: on Burp's thread it only checks the tool and Content-Type, copies the response bytes
+ * and queues them, then lets the response through unchanged. The copy is scanned on a small pool of
+ * daemon threads by {@link ResponseLoggerPassiveCheck#scan}, the same pipeline (caches, budget, skip
+ * list, RDAP stage) the scanner path uses.
+ *
+ * <p>Selected with -Ddomainjackr.mode=live (or {@code both}; default {@code scanner}). Only responses
+ * from -Ddomainjackr.liveTools (default {@code proxy}) are taken; the extension's own RDAP requests
+ * never are. The pool (-Ddomainjackr.liveThreads, default 2) sits behind a queue bounded both in
+ * responses (-Ddomainjackr.liveQueue, default 256) and in copied bytes waiting
+ * (-Ddomainjackr.liveMaxPendingBytes, default 64 MiB); a response over either limit is not scanned
+ * and is counted as dropped, so a traffic burst never slows the proxy down or grows the heap.
+ */
+final class LiveTrafficHandler implements HttpHandler {
+    static final int DEFAULT_THREADS = 2;
+    static final int DEFAULT_QUEUE = 256;
+    static final long DEFAULT_MAX_PENDING_BYTES = 64L << 20;
+
+    /** Where domains are extracted from: the scanner, live traffic, or both. */
+    enum Mode {
+        SCANNER, LIVE, BOTH;
+
+        /** Case-insensitive; anything else is logged and read as SCANNER. */
+        static Mode fromSystemProperty(Logging log) {
+            String v = System.getProperty("domainjackr.mode", "scanner").trim();
+            for (Mode m : values()) {
+                if (m.name().equalsIgnoreCase(v)) return m;
+            }
+            log.logToError("[DomainJackr] Unknown domainjackr.mode \"" + v + "\", using scanner");
+            return SCANNER;
+        }
+
+        boolean scanner() {
+            return this != LIVE;
+        }
+
+        boolean live() {
+            return this != SCANNER;
+        }
+    }
+
+    private final ResponseLoggerPassiveCheck check;
+    private final Logging log;
+    private final ToolType[] tools;
+    private final long maxPendingBytes;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder handlerNanos = new LongAdder();
+
+    LiveTrafficHandler(ResponseLoggerPassiveCheck check, Logging log, Set<ToolType> tools,
+                       int threads, int queueSize, long maxPendingBytes) {
+        if (threads <= 0 || queueSize <= 0 || maxPendingBytes <= 0) {
+            throw new IllegalArgumentException("threads, queueSize and maxPendingBytes must be > 0");
+        }
+        this.check = check;
+        this.log = log;
+        this.tools = tools.stream().filter(t -> t != ToolType.EXTENSIONS).toArray(ToolType[]::new);
+        this.maxPendingBytes = maxPendingBytes;
+
+        AtomicInteger ids = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "DomainJackr-live-" + ids.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    static LiveTrafficHandler fromSystemProperty(ResponseLoggerPassiveCheck check, Logging log) {
+        return new LiveTrafficHandler(check, log, toolsFromSystemProperty(log),
+                Integer.getInteger("domainjackr.liveThreads", DEFAULT_THREADS),
+                Integer.getInteger("domainjackr.liveQueue", DEFAULT_QUEUE),
+                Long.getLong("domainjackr.liveMaxPendingBytes", DEFAULT_MAX_PENDING_BYTES));
+    }
+
+    /**
+     * -Ddomainjackr.liveTools=proxy,repeater,... (ToolType names, case-insensitive). Unknown names are
+     * logged and skipped; if none is left, proxy.
+     */
+    static Set<ToolType> toolsFromSystemProperty(Logging log) {
+        Set<ToolType> tools = EnumSet.noneOf(ToolType.class);
+        for (String name : System.getProperty("domainjackr.liveTools", "proxy").split(",")) {
+            if (name.isBlank()) continue;
+            ToolType tool = toolType(name.trim());
+            if (tool != null) {
+                tools.add(tool);
+            } else {
+                log.logToError("[DomainJackr] Unknown tool \"" + name.trim() + "\" in domainjackr.liveTools, skipped");
+            }
+        }
+        if (tools.isEmpty()) {
+            log.logToError("[DomainJackr] No known tool in domainjackr.liveTools, using proxy");
+            tools.add(ToolType.PROXY);
+        }
+        return tools;
+    }
+
+    @Override
+    public RequestToBeSentAction handleHttpRequestToBeSent(HttpRequestToBeSent requestToBeSent) {
+        return RequestToBeSentAction.continueWith(requestToBeSent);
+    }
+
+    @Override
+    public ResponseReceivedAction handleHttpResponseReceived(HttpResponseReceived responseReceived) {
+        long start = System.nanoTime();
+        try {
+            if (responseReceived.toolSource().isFromTool(tools)
+                    && ResponseLoggerPassiveCheck.isProbablyTextual(responseReceived.headerValue("Content-Type"))) {
+                offer(responseReceived);
+            }
+        } catch (RuntimeException e) {
+            failed.increment(); // never let extraction bookkeeping break the user's traffic
+        } finally {
+            responses.increment();
+            handlerNanos.add(System.nanoTime() - start);
+        }
+        return ResponseReceivedAction.continueWith(responseReceived);
+    }
+
+    /** Stop scanning (extension unload); queued responses are discarded. */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Publish the counters under {@code prefix}. */
+    void exportTo(Metrics metrics, String prefix) {
+        metrics.gauge(prefix + ".responses", responses::sum);
+        metrics.gauge(prefix + ".queued", queued::sum);
+        metrics.gauge(prefix + ".dropped", dropped::sum);
+        metrics.gauge(prefix + ".scanned", scanned::sum);
+        metrics.gauge(prefix + ".failed", failed::sum);
+        metrics.gauge(prefix + ".bytes", bytes::sum);
+        metrics.gauge(prefix + ".pending", () -> executor.getQueue().size());
+        metrics.gauge(prefix + ".pendingBytes", pendingBytes::get);
+        metrics.gauge(prefix + ".avgHandlerMicros", () -> {
+            long n = responses.sum();
+            return n == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(handlerNanos.sum() / n);
+        });
+    }
+
+    // ---- helpers ----
+
+    /**
+     * Reserve the response's size against the pending-bytes cap, then copy it and queue the scan. The
+     * size comes from the body length and offset, so a response over the cap (or meeting a full queue)
+     * is turned away before anything is copied. The message Burp hands over belongs to the live
+     * exchange, so the worker gets its own bytes: the ones {@code toByteArray} serializes the message
+     * into, the only copy made on Burp's thread.
+     */
+    private void offer(HttpResponseReceived responseReceived) {
+        if (executor.isShutdown()) return;
+        if (executor.getQueue().remainingCapacity() == 0) { // would be rejected
+            dropped.increment();
+            return;
+        }
+        long size = (long) responseReceived.bodyOffset() + responseReceived.body().length();
+        if (pendingBytes.addAndGet(size) > maxPendingBytes) {
+            pendingBytes.addAndGet(-size);
+            dropped.increment();
+            return;
+        }
+        try {
+            HttpResponse copy = HttpResponse.httpResponse(responseReceived.toByteArray());
+            HttpRequestResponse message = HttpRequestResponse.httpRequestResponse(
+                    responseReceived.initiatingRequest(), copy);
+            executor.execute(() -> process(message, size));
+            queued.increment();
+        } catch (RejectedExecutionException e) {
+            pendingBytes.addAndGet(-size);
+            dropped.increment();
+        }
+    }
+
+    private static ToolType toolType(String name) {
+        for (ToolType tool : ToolType.values()) {
+            if (tool.name().equalsIgnoreCase(name)) return tool;
+        }
+        return null;
+    }
+
+    /** On a live worker thread. */
+    private void process(HttpRequestResponse message, long size) {
+        try {
+            check.scan(message);
+            scanned.increment();
+            bytes.add(size);
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.logToError("[DomainJackr] Live scan failed for " + message.request().url() + ": " + e.getMessage());
+        } finally {
+            pendingBytes.addAndGet(-size);
+        }
+    }
+}
@@ -0,0 +1,410 @@
+// LookupQueue.java
+// Bounded lock-free queue of pending RDAP lookups between the passive check and RdapStage, with an overflow policy.
+
+import burp.api.montoya.logging.Logging;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A fixed ring of slots, each with a sequence number (Vyukov's bounded queue): scanner threads claim a
+ * slot with one CAS on the tail and never take a lock; RdapStage's dispatcher is the single consumer.
+ * Memory is capped at {@code capacity} lookups (-Ddomainjackr.rdapQueue, default 4096, rounded up to a
+ * power of two). When the ring is full, -Ddomainjackr.rdapOverflow decides:
+ *
+ * <ul>
+ *   <li>{@code block} (default): the scanner thread waits for a free slot, backing off with short parks,
+ *       so a slow RDAP stage slows passive scanning down instead of growing the heap;</li>
+ *   <li>{@code drop-oldest}: the oldest queued lookup is discarded to make room;</li>
+ *   <li>{@code spill}: the lookup is appended to a temp file and read back once the ring is empty.
+ *       Only the domain, URL and where it was seen are written; such issues carry no evidence message.</li>
+ * </ul>
+ *
+ * Dropped lookups go to the {@code onDrop} callback, and so do the ones still queued or spilled when
+ * the queue is closed. Depth, drops, spills, time blocked and time spent queued are exported with
+ * {@link #exportTo}.
+ */
+final class LookupQueue {
+    static final int DEFAULT_CAPACITY = 4_096;
+
+    enum Overflow {
+        BLOCK, DROP_OLDEST, SPILL;
+
+        /** Case-insensitive, {@code -} or {@code _}; anything else is logged and read as BLOCK. */
+        static Overflow fromSystemProperty(Logging log) {
+            String v = System.getProperty("domainjackr.rdapOverflow", "block").trim();
+            for (Overflow o : values()) {
+                if (o.name().equalsIgnoreCase(v.replace('-', '_'))) return o;
+            }
+            log.logToError("[DomainJackr] Unknown domainjackr.rdapOverflow \"" + v + "\", using block");
+            return BLOCK;
+        }
+    }
+
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100); // bound on a missed wakeup
+
+    /** A lookup and when it was queued (System.nanoTime). */
+    private record Entry(RdapStage.Lookup lookup, long queuedAt) {}
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Entry> slots;
+    private final AtomicLongArray sequence; // == position: free for that put; == position + 1: holds it
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final Overflow overflow;
+    private final SpillFile spill; // null unless SPILL
+    private final Consumer<RdapStage.Lookup> onDrop;
+    private final Logging log;
+
+    private volatile boolean closed;
+    private volatile boolean consumerWaiting;
+    private volatile Thread consumer;
+
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder taken = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    LookupQueue(int capacity, Overflow overflow, Consumer<RdapStage.Lookup> onDrop, Logging log) throws IOException {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        int size = 1;
+        while (size < capacity) size <<= 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+        this.sequence = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) sequence.set(i, i);
+        this.overflow = overflow;
+        this.onDrop = onDrop;
+        this.log = log;
+        this.spill = overflow == Overflow.SPILL ? new SpillFile() : null;
+    }
+
+    static LookupQueue fromSystemProperty(Consumer<RdapStage.Lookup> onDrop, Logging log) throws IOException {
+        return new LookupQueue(Integer.getInteger("domainjackr.rdapQueue", DEFAULT_CAPACITY),
+                Overflow.fromSystemProperty(log), onDrop, log);
+    }
+
+    /**
+     * Queue a lookup (any thread). False if it was not queued: the queue is closed, a blocked caller was
+     * interrupted, or the spill file failed; the lookup then went to {@code onDrop}.
+     */
+    boolean offer(RdapStage.Lookup lookup) {
+        Entry e = new Entry(lookup, System.nanoTime());
+        boolean queued = !closed && (tryPut(e) || overflow(e));
+        if (queued) {
+            offered.increment();
+            if (consumerWaiting) LockSupport.unpark(consumer);
+            if (closed) drainClosed(); // put while close() was draining
+        } else {
+            drop(lookup);
+        }
+        return queued;
+    }
+
+    /** The next lookup (single consumer), waiting while there is none; null once closed. */
+    RdapStage.Lookup take() throws InterruptedException {
+        consumer = Thread.currentThread();
+        for (;;) {
+            if (closed) return null; // what is left goes to onDrop in close()
+            Entry e = tryTake();
+            if (e == null && spill != null) e = spill.read();
+            if (e != null) {
+                taken.increment();
+                waitNanos.add(System.nanoTime() - e.queuedAt());
+                return e.lookup();
+            }
+            consumerWaiting = true;
+            if (isRingEmpty() && (spill == null || spill.pending() == 0)) LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            consumerWaiting = false;
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+
+    /** Lookups queued and not yet taken, spilled ones included. */
+    long depth() {
+        return Math.max(0, tail.get() - head.get()) + (spill == null ? 0 : spill.pending());
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /** The spill file (SPILL only), for tests. */
+    Path spillPath() {
+        return spill == null ? null : spill.path;
+    }
+
+    /**
+     * Stop accepting lookups and wake blocked producers and the consumer. Lookups still queued or
+     * spilled were never looked up: they go to {@code onDrop}, then the spill file is deleted.
+     */
+    void close() {
+        closed = true;
+        Thread c = consumer;
+        if (c != null) LockSupport.unpark(c);
+        drainClosed();
+        if (spill != null) spill.delete();
+    }
+
+    /** A lookup taken off the queue that will not be looked up after all: counted and reported as dropped. */
+    void drop(RdapStage.Lookup lookup) {
+        dropped.increment();
+        onDrop.accept(lookup);
+    }
+
+    /** Publish depth and overflow counters under {@code prefix}. */
+    void exportTo(Metrics metrics, String prefix) {
+        metrics.gauge(prefix + ".depth", this::depth);
+        metrics.gauge(prefix + ".capacity", this::capacity);
+        metrics.gauge(prefix + ".offered", offered::sum);
+        metrics.gauge(prefix + ".dropped", dropped::sum);
+        metrics.gauge(prefix + ".spilled", spilled::sum);
+        metrics.gauge(prefix + ".blocked", blocked::sum);
+        metrics.gauge(prefix + ".blockedMs", () -> TimeUnit.NANOSECONDS.toMillis(blockedNanos.sum()));
+        metrics.gauge(prefix + ".avgWaitMs", () -> {
+            long n = taken.sum();
+            return n == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waitNanos.sum() / n);
+        });
+    }
+
+    // ---- ring ----
+
+    private boolean tryPut(Entry e) {
+        long pos = tail.get();
+        for (;;) {
+            int i = (int) pos & mask;
+            long d = sequence.get(i) - pos;
+            if (d == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.set(i, e);
+                    sequence.set(i, pos + 1); // publishes the entry
+                    return true;
+                }
+                pos = tail.get();
+            } else if (d < 0) {
+                return false; // the slot still holds an entry from one lap ago: full
+            } else {
+                pos = tail.get(); // another producer took this position
+            }
+        }
+    }
+
+    /** Safe from several threads at once (the consumer, and producers evicting under DROP_OLDEST). */
+    private Entry tryTake() {
+        long pos = head.get();
+        for (;;) {
+            int i = (int) pos & mask;
+            long d = sequence.get(i) - (pos + 1);
+            if (d == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    Entry e = slots.getAndSet(i, null);
+                    sequence.set(i, pos + capacity); // free for the put one lap ahead
+                    return e;
+                }
+                pos = head.get();
+            } else if (d < 0) {
+                return null; // empty (or the put at pos is still being published)
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /** Empty the ring and the spill file into onDrop (after close; tryTake is safe alongside the consumer). */
+    private void drainClosed() {
+        for (Entry e; (e = tryTake()) != null; ) drop(e.lookup());
+        if (spill != null) {
+            for (Entry e; (e = spill.read()) != null; ) drop(e.lookup());
+        }
+    }
+
+    private boolean isRingEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    // ---- overflow ----
+
+    private boolean overflow(Entry e) {
+        return switch (overflow) {
+            case BLOCK -> putBlocking(e);
+            case DROP_OLDEST -> {
+                while (!tryPut(e)) {
+                    Entry oldest = tryTake();
+                    if (oldest != null) drop(oldest.lookup());
+                }
+                yield true;
+            }
+            case SPILL -> {
+                if (!spill.write(e)) yield false;
+                spilled.increment();
+                yield true;
+            }
+        };
+    }
+
+    private boolean putBlocking(Entry e) {
+        blocked.increment();
+        long start = System.nanoTime();
+        try {
+            for (long backoff = 1_000; !tryPut(e); backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS)) {
+                if (closed || Thread.currentThread().isInterrupted()) return false;
+                LockSupport.parkNanos(this, backoff);
+            }
+            return true;
+        } finally {
+            blockedNanos.add(System.nanoTime() - start);
+        }
+    }
+
+
+    /**
+     * Overflowed lookups, one tab-separated line each ({@code queuedAt domain url seenIn}). Written and
+     * read under one lock (only the overflow path gets here); emptied once everything is read back. An
+     * entry that cannot be read back is not silently lost: whatever can still be read of the file goes
+     * to {@code onDrop}, and the failure is logged.
+     */
+    private final class SpillFile {
+        private final Path path;
+        private BufferedWriter out;
+        private BufferedReader in;
+        private long pending;  // written and not read back
+        private long consumed; // lines read back since the file was last emptied
+
+        SpillFile() throws IOException {
+            this.path = Files.createTempFile("domainjackr-rdap-", ".spill");
+            path.toFile().deleteOnExit();
+            this.out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        }
+
+        synchronized boolean write(Entry e) {
+            if (out == null) return false; // deleted, or could not be emptied
+            RdapStage.Lookup l = e.lookup();
+            try {
+                out.write(e.queuedAt() + "\t" + field(l.domain()) + "\t" + field(l.url()) + "\t" + field(l.seenIn()));
+                out.newLine();
+                out.flush(); // the reader only sees whole lines
+                pending++;
+                return true;
+            } catch (IOException ex) {
+                return false;
+            }
+        }
+
+        /** The next spilled entry, or null when none is pending. */
+        synchronized Entry read() {
+            while (pending > 0) {
+                String line;
+                try {
+                    if (in == null) in = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+                    line = in.readLine();
+                    if (line == null) throw new IOException("spill file ended early");
+                } catch (IOException ex) {
+                    recover(ex);
+                    return null;
+                }
+                pending--;
+                consumed++;
+                if (pending == 0) empty();
+                Entry e = parse(line);
+                if (e != null) return e;
+                log.logToError("[DomainJackr] Skipped a malformed line in the RDAP spill file");
+            }
+            return null;
+        }
+
+        synchronized long pending() {
+            return pending;
+        }
+
+        synchronized void delete() {
+            try {
+                if (in != null) in.close();
+                if (out != null) out.close();
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // deleteOnExit is still registered
+            }
+            in = null;
+            out = null;
+            pending = 0;
+        }
+
+        /**
+         * The reader failed: read the file again (bad bytes replaced) past the lines already taken, send
+         * every entry left to onDrop, and start the file over.
+         */
+        private void recover(IOException failure) {
+            long left = pending, forgotten = 0;
+            try (BufferedReader again = new BufferedReader(
+                    new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8))) {
+                for (long k = 0; k < consumed && again.readLine() != null; k++) {
+                    // taken already
+                }
+                String line;
+                for (long k = 0; k < left && (line = again.readLine()) != null; k++) {
+                    Entry e = parse(line);
+                    if (e == null) continue;
+                    drop(e.lookup());
+                    forgotten++;
+                }
+            } catch (IOException | RuntimeException e) {
+                // the rest cannot be read at all
+            }
+            log.logToError("[DomainJackr] RDAP spill file unreadable (" + failure.getMessage() + "): "
+                    + forgotten + " of " + left + " queued lookup(s) forgotten, to be queued again when next seen");
+            pending = 0;
+            empty();
+        }
+
+        /** Nothing pending: truncate, so the file does not grow across bursts. */
+        private void empty() {
+            consumed = 0;
+            try {
+                if (in != null) in.close();
+                in = null;
+                if (out != null) out.close();
+                out = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException e) {
+                out = null; // later overflows are dropped (and forgotten) instead of spilled
+                log.logToError("[DomainJackr] RDAP spill file could not be emptied: " + e.getMessage());
+            }
+        }
+
+        /** Null only without a domain; a garbled time reads as now, the other fields as they are. */
+        private static Entry parse(String line) {
+            String[] f = line.split("\t", 4);
+            if (f.length < 2 || f[1].isBlank()) return null;
+            long queuedAt;
+            try {
+                queuedAt = Long.parseLong(f[0]);
+            } catch (NumberFormatException e) {
+                queuedAt = System.nanoTime();
+            }
+            return new Entry(new RdapStage.Lookup(f[1], f.length > 2 ? f[2] : "", null, f.length > 3 ? f[3] : ""),
+                    queuedAt);
+        }
+
+        private static String field(String s) {
+            return s == null ? "" : s.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+        }
+    }
+}
@@ -0,0 +1,82 @@
+// Metrics.java
+// Named counters and gauges for the extension, logged periodically and once more on unload.
+
+import burp.api.montoya.logging.Logging;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of long-valued metrics in registration order. Counters are LongAdders (cheap to bump from
+ * every scanner thread); gauges are read only when a snapshot is taken. Interval from
+ * -Ddomainjackr.metricsIntervalSec (default 300; 0 = only on unload).
+ */
+final class Metrics {
+    static final long DEFAULT_INTERVAL_SEC = 300;
+
+    private final Map<String, LongSupplier> values = new LinkedHashMap<>();
+    private ScheduledExecutorService logger;
+
+    /** A counter registered under {@code name} (the existing one if already registered). */
+    synchronized LongAdder counter(String name) {
+        LongSupplier existing = values.get(name);
+        if (existing instanceof CounterValue c) return c.adder;
+        CounterValue c = new CounterValue();
+        values.put(name, c);
+        return c.adder;
+    }
+
+    /** A value computed at snapshot time. Re-registering a name replaces it. */
+    synchronized void gauge(String name, LongSupplier value) {
+        values.put(name, value);
+    }
+
+    /** One line: {@code name=value, name=value, ...}. */
+    synchronized String snapshot() {
+        StringBuilder sb = new StringBuilder("[DomainJackr] metrics:");
+        for (Map.Entry<String, LongSupplier> e : values.entrySet()) {
+            sb.append(' ').append(e.getKey()).append('=').append(e.getValue().getAsLong());
+        }
+        return sb.toString();
+    }
+
+    /** Log a snapshot every {@code intervalSec} seconds on a daemon thread (no-op for 0). */
+    synchronized void startLogging(Logging log, long intervalSec) {
+        if (intervalSec <= 0 || logger != null) return;
+        logger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "DomainJackr-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        logger.scheduleAtFixedRate(() -> log.logToOutput(snapshot()), intervalSec, intervalSec, TimeUnit.SECONDS);
+    }
+
+    /** Stop periodic logging (extension unload). */
+    synchronized void stop() {
+        if (logger != null) logger.shutdownNow();
+        logger = null;
+    }
+
+    static long intervalFromSystemProperty() {
+        return Long.getLong("domainjackr.metricsIntervalSec", DEFAULT_INTERVAL_SEC);
+    }
+
+    /** {@code part} as a whole percentage of {@code total} (0 when total is 0). */
+    static long percent(long part, long total) {
+        return total == 0 ? 0 : Math.round(100.0 * part / total);
+    }
+
+    private static final class CounterValue implements LongSupplier {
+        final LongAdder adder = new LongAdder();
+
+        @Override
+        public long getAsLong() {
+            return adder.sum();
+        }
+    }
+}
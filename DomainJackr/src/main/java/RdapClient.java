@@ -11,16 +11,115 @@ import com.google.gson.JsonParser;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * RDAP lookups. {@link #isClaimableAsync} runs each one on its own virtual thread: a lookup is almost
+ * all network wait, so thousands can be pending without holding a platform thread. At most
+ * -Ddomainjackr.rdapConcurrency lookups (default 64) are in flight at once, and at most
+ * -Ddomainjackr.rdapPerEndpoint (default 8) against one RDAP server, so a TLD with a slow or
+ * rate-limiting registry cannot take every slot. A lookup waits for its endpoint first and only then
+ * takes a global slot, so lookups queued behind a backed-up registry hold no global slot while they
+ * wait. Waiting lookups are bounded too: the caller blocks once {@code ADMITTED_PER_SLOT} times the
+ * global limit have been started and not finished.
+ */
 public final class RdapClient {
     private static final int MAX_REDIRECTS = 3;
+    static final int DEFAULT_CONCURRENCY = 64;
+    static final int DEFAULT_PER_ENDPOINT = 8;
+    private static final int ADMITTED_PER_SLOT = 16; // started lookups (running or waiting) per global slot
 
     private final MontoyaApi api;
     private final RdapService rdapService;
+    private final int concurrency;
+    private final int perEndpoint;
+    private final Semaphore inFlight;
+    private final Semaphore admitted;
+    private final ConcurrentHashMap<String, Semaphore> endpoints = new ConcurrentHashMap<>();
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("DomainJackr-rdap-", 0).factory());
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder endpointWaits = new LongAdder();
 
     public RdapClient(MontoyaApi api, RdapService rdapService) {
+        this(api, rdapService, Integer.getInteger("domainjackr.rdapConcurrency", DEFAULT_CONCURRENCY),
+                Integer.getInteger("domainjackr.rdapPerEndpoint", DEFAULT_PER_ENDPOINT));
+    }
+
+    RdapClient(MontoyaApi api, RdapService rdapService, int concurrency, int perEndpoint) {
+        if (concurrency <= 0 || perEndpoint <= 0) {
+            throw new IllegalArgumentException("concurrency and perEndpoint must be > 0");
+        }
         this.api = api;
         this.rdapService = rdapService;
+        this.concurrency = concurrency;
+        this.perEndpoint = perEndpoint;
+        this.inFlight = new Semaphore(concurrency);
+        this.admitted = new Semaphore(concurrency * ADMITTED_PER_SLOT);
+    }
+
+    /**
+     * {@link #isClaimable} on a virtual thread. Blocks the caller while too many lookups are started and
+     * unfinished (the caller's queue stays the place where lookups wait); on the virtual thread, the
+     * per-endpoint permit is taken before the global one and released after it. Unknown TLDs complete
+     * at once with false.
+     */
+    CompletableFuture<Boolean> isClaimableAsync(String domain) throws InterruptedException {
+        String rdapUrl = rdapService.rdapUrlForDomain(domain);
+        if (rdapUrl == null) {
+            api.logging().logToOutput("[RDAP] No RDAP mapping for: " + domain);
+            return CompletableFuture.completedFuture(false);
+        }
+        Semaphore endpoint = endpoints.computeIfAbsent(endpointOf(rdapUrl), k -> new Semaphore(perEndpoint));
+
+        admitted.acquire();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    if (!endpoint.tryAcquire()) {
+                        endpointWaits.increment();
+                        endpoint.acquireUninterruptibly();
+                    }
+                    try {
+                        inFlight.acquireUninterruptibly();
+                        try {
+                            lookups.increment();
+                            return isClaimableUrl(rdapUrl);
+                        } finally {
+                            inFlight.release();
+                        }
+                    } finally {
+                        endpoint.release();
+                    }
+                } finally {
+                    admitted.release();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            admitted.release();
+            throw e;
+        }
+    }
+
+    /** Stop the virtual-thread executor (extension unload); lookups in flight are interrupted. */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Publish lookups, in-flight count, endpoints seen and endpoint-limit waits under {@code prefix}. */
+    void exportTo(Metrics metrics, String prefix) {
+        metrics.gauge(prefix + ".lookups", lookups::sum);
+        metrics.gauge(prefix + ".inFlight", () -> concurrency - inFlight.availablePermits());
+        metrics.gauge(prefix + ".endpoints", endpoints::size);
+        metrics.gauge(prefix + ".endpointWaits", endpointWaits::sum);
     }
 
     /** true => domain appears claimable (i.e., not found in RDAP) */
@@ -143,6 +242,16 @@ public final class RdapClient {
         return null;
     }
 
+    /** The RDAP server's host (redirects it answers with do not count against another endpoint). */
+    private static String endpointOf(String rdapUrl) {
+        try {
+            String host = URI.create(rdapUrl).getHost();
+            return host == null ? rdapUrl : host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return rdapUrl;
+        }
+    }
+
     private static String resolve(String base, String location) {
         try {
             return URI.create(base).resolve(location).toString();
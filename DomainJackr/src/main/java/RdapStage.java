@@ -0,0 +1,127 @@
+// RdapStage.java
+// Background stage: RDAP lookups for newly seen domains, off the scanner threads.
+
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.logging.Logging;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An RDAP lookup is one or more network round trips; doing them inside {@code doCheck} held a Burp
+ * scanner thread for each new domain of a response in turn. {@link #submit} puts the lookup on a
+ * bounded {@link LookupQueue} and returns (unless the queue is full and its policy is to block); a
+ * dispatcher thread takes lookups off it as {@link RdapClient#isClaimableAsync} has room for them (its
+ * concurrency limits), so nothing queues anywhere else. Claimable domains go to the {@link Listener},
+ * which raises the issue through the site map. A lookup the queue drops is forgotten by the
+ * DomainStore, so the domain is queued again when next seen.
+ */
+final class RdapStage {
+
+    /** One domain to look up, with the URL and response it was first seen in (null once spilled). */
+    record Lookup(String domain, String url, HttpRequestResponse evidence, String seenIn) {}
+
+    /** Receives domains RDAP reports as unregistered, on a stage thread. */
+    interface Listener {
+        void onClaimable(Lookup lookup);
+    }
+
+    private final RdapClient rdapClient;
+    private final Logging log;
+    private final LookupQueue queue;
+    private final Thread dispatcher;
+    private volatile Listener listener;
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder claimable = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    RdapStage(RdapClient rdapClient, Logging log, LookupQueue queue) {
+        this.rdapClient = rdapClient;
+        this.log = log;
+        this.queue = queue;
+        this.dispatcher = new Thread(this::dispatch, "DomainJackr-rdap-dispatch");
+        this.dispatcher.setDaemon(true);
+    }
+
+    /** Queue from system properties; dropped lookups are forgotten by {@code store}. */
+    static RdapStage fromSystemProperty(RdapClient rdapClient, DomainStore store, Logging log) {
+        try {
+            return new RdapStage(rdapClient, log, LookupQueue.fromSystemProperty(l -> store.forget(l.domain()), log));
+        } catch (IOException e) {
+            throw new UncheckedIOException("RDAP spill file", e);
+        }
+    }
+
+    /** Start dispatching; {@code listener} hears about claimable domains. */
+    void start(Listener listener) {
+        this.listener = listener;
+        dispatcher.start();
+    }
+
+    /** Queue an RDAP lookup; the listener hears about it later if the domain is claimable. */
+    void submit(Lookup lookup) {
+        if (queue.offer(lookup)) queued.increment();
+    }
+
+    /**
+     * Stop dispatching (extension unload). Lookups still queued or spilled are forgotten by the
+     * DomainStore, so a later session looks them up instead of skipping them as already seen.
+     */
+    void shutdown() {
+        queue.close();
+        dispatcher.interrupt();
+    }
+
+    /** Publish the counters under {@code prefix}. */
+    void exportTo(Metrics metrics, String prefix) {
+        metrics.gauge(prefix + ".queued", queued::sum);
+        metrics.gauge(prefix + ".checked", checked::sum);
+        metrics.gauge(prefix + ".claimable", claimable::sum);
+        metrics.gauge(prefix + ".failed", failed::sum);
+        queue.exportTo(metrics, prefix + ".queue");
+    }
+
+    // ---- stage threads ----
+
+    /** The queue's single consumer; waits inside isClaimableAsync while the client is at its limit. */
+    private void dispatch() {
+        try {
+            for (;;) {
+                Lookup lookup = queue.take();
+                if (lookup == null) return; // closed
+                try {
+                    rdapClient.isClaimableAsync(lookup.domain())
+                            .whenComplete((isClaimable, error) -> done(lookup, isClaimable, error));
+                } catch (RejectedExecutionException | InterruptedException e) {
+                    queue.drop(lookup); // unloading: never looked up
+                    return;
+                } catch (RuntimeException e) {
+                    done(lookup, null, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            // shutdown
+        }
+    }
+
+    /** On the lookup's virtual thread (or the dispatcher, if it never started). */
+    private void done(Lookup lookup, Boolean isClaimable, Throwable error) {
+        if (error != null) {
+            failed.increment();
+            log.logToError("[DomainJackr] RDAP check failed for " + lookup.domain() + ": " + error.getMessage());
+            return;
+        }
+        checked.increment();
+        if (!isClaimable) return;
+        claimable.increment();
+        try {
+            listener.onClaimable(lookup);
+        } catch (RuntimeException e) {
+            log.logToError("[DomainJackr] Could not raise issue for " + lookup.domain() + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,7 +1,8 @@
 // ResponseLoggerPassiveCheck.java
-// Passive scan check that files issues instead of logging domains.
+// Passive scan check that extracts domains and queues new ones for RDAP; issues are filed from the RDAP stage.
 
 import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
 import burp.api.montoya.http.message.HttpHeader;
 import burp.api.montoya.http.message.HttpRequestResponse;
 import burp.api.montoya.http.message.responses.HttpResponse;
@@ -11,7 +12,7 @@ import burp.api.montoya.scanner.audit.issues.AuditIssueConfidence;
 import burp.api.montoya.scanner.audit.issues.AuditIssueSeverity;
 import burp.api.montoya.scanner.scancheck.PassiveScanCheck;
 
-import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
@@ -21,7 +22,12 @@ import static burp.api.montoya.scanner.AuditResult.auditResult;
 public final class ResponseLoggerPassiveCheck implements PassiveScanCheck {
     private final MontoyaApi api;
     private final DomainStore store;
-    private final RdapClient rdapClient;
+    private final RdapStage rdapStage;
+    private final DomainExtractor extractor;
+    private final BodyCache<List<String>> bodyCache; // null = disabled
+    private final ChunkCache chunkCache; // null = disabled
+    private final SourceMapFetcher sourceMaps; // null = disabled
+    private final ScanBudget budget;
 
     // Allow-list of textual content types we actually want to scan.
     private static final Set<String> TEXTUAL_EXACT = Set.of(
@@ -58,10 +64,17 @@ public final class ResponseLoggerPassiveCheck implements PassiveScanCheck {
             "fontawesome.com", "hubspot.com", "typekit.com", "unpkg.com", "atlassian.com", "oktacdn.com"
     );
 
-    public ResponseLoggerPassiveCheck(MontoyaApi api, DomainStore store, RdapClient rdapClient) {
+    public ResponseLoggerPassiveCheck(MontoyaApi api, DomainStore store, RdapStage rdapStage,
+                                      DomainExtractor extractor, BodyCache<List<String>> bodyCache,
+                                      ChunkCache chunkCache, SourceMapFetcher sourceMaps, ScanBudget budget) {
         this.api = api;
         this.store = store;
-        this.rdapClient = rdapClient;
+        this.rdapStage = rdapStage;
+        this.extractor = extractor;
+        this.bodyCache = bodyCache;
+        this.chunkCache = chunkCache;
+        this.sourceMaps = sourceMaps;
+        this.budget = budget;
     }
 
     @Override
@@ -71,96 +84,166 @@ public final class ResponseLoggerPassiveCheck implements PassiveScanCheck {
 
     @Override
     public AuditResult doCheck(HttpRequestResponse base) {
+        scan(base);
+        return auditResult(List.of());
+    }
+
+    /**
+     * Extract the response's domains and queue the new ones for RDAP. Called by the scanner through
+     * {@link #doCheck} and by {@link LiveTrafficHandler} workers; issues are filed later by the RDAP stage.
+     */
+    void scan(HttpRequestResponse base) {
         HttpResponse resp = base.response();
-        if (resp == null) {
-            return auditResult(List.of());
-        }
+        if (resp == null) return;
 
         // Skip non-text/binary-ish responses early
-        if (!isProbablyTextual(resp)) {
-            return auditResult(List.of());
-        }
+        String contentType = headerValue(resp, "Content-Type");
+        if (!isProbablyTextual(contentType)) return;
 
-        // Build a single string (headers + body) to feed DomainExtractor
-        StringBuilder sb = new StringBuilder(51200);
-        sb.append("[DomainJackr] Passive log for ")
-                .append(base.request().url())
-                .append(" — Status ").append(resp.statusCode()).append('\n');
+        // Headers and raw body bytes are scanned in place; nothing is concatenated or decoded up front.
+        // Headers always differ (Date, cookies...); the body result is reused for identical bodies.
+        // The body's share is bounded by the scan budget (bytes scanned, CPU time).
+        ScanBudget.Deadline deadline = budget.start();
+        Set<String> found = new LinkedHashSet<>(extractor.extractDomains(resp.headers(), null));
+        found.addAll(bodyDomains(resp.body(), DomainExtractor.ContentMode.forContentType(contentType),
+                headerValue(resp, "Content-Encoding"), deadline));
 
-        for (HttpHeader h : resp.headers()) {
-            sb.append(h.name()).append(": ").append(h.value()).append('\n');
-        }
-        sb.append("\n").append(resp.bodyToString());
+        // Source maps are fetched and scanned in the background; their issues are added to the site map.
+        if (sourceMaps != null) sourceMaps.offer(base, contentType, this::onSourceMapDomains);
+
+        // RDAP runs on its own stage; claimable domains are raised from there, through the site map.
+        queueLookups(found, base, base.request().url());
+    }
 
-        List<String> found = new DomainExtractor().extractDomains(sb.toString());
+    /** Domains from a script's source map (fetcher thread): same filtering and lookup as page domains. */
+    private void onSourceMapDomains(HttpRequestResponse script, String mapUrl, List<String> domains) {
+        queueLookups(domains, script, mapUrl + " (source map of " + script.request().url() + ")");
+    }
 
-        List<AuditIssue> issues = new ArrayList<>();
-        for (String domain : found) {
+    /**
+     * Queue an RDAP lookup for each domain that is not on the skip list and new to this project. The
+     * evidence is copied to a temp file once, so queued lookups do not keep the message in memory.
+     */
+    private void queueLookups(Iterable<String> domains, HttpRequestResponse base, String seenIn) {
+        HttpRequestResponse evidence = null;
+        String url = base.request().url();
+        for (String domain : domains) {
             // ⬅️ Skip noisy provider/CDN domains
-            if (isSkippedDomain(domain)) {
-                continue;
-            }
+            if (isSkippedDomain(domain)) continue;
 
             // Only act on first sighting in this Burp project
             if (!store.markIfNew(domain)) continue;
 
-            boolean claimable = false;
-            try {
-                claimable = rdapClient.isClaimable(domain);
-            } catch (Exception e) {
-                api.logging().logToError("[DomainJackr] RDAP check failed for " + domain + ": " + e.getMessage());
-            }
-            if (!claimable) continue;
-
-            // Compose issue
-            String baseUrl = base.request().url();
-            String escapedDomain = h(domain);
-            String escapedUrl = h(baseUrl);
-
-            String detail =
-                    "<p>The application references the domain <code>" + escapedDomain + "</code>, " +
-                            "which appears <strong>unregistered</strong> according to RDAP (HTTP 404 or equivalent).</p>" +
-                            "<p><b>First seen in:</b> " + escapedUrl + "</p>" +
-                            "<p>This can enable a domain takeover if an attacker registers the domain and serves " +
-                            "controlled content (e.g., scripts, CSS, images) or captures email.</p>";
-
-            String remediation =
-                    "<ul>" +
-                            "<li>Register the domain if it is intended to be owned.</li>" +
-                            "<li>Otherwise, remove/replace references (links, assets, CSP, redirects, emails).</li>" +
-                            "<li>Consider CSP hardening and Subresource Integrity where applicable.</li>" +
-                            "</ul>";
-
-            AuditIssue issue = AuditIssue.auditIssue(
-                    "Possible domain takeover: " + escapedDomain,
-                    detail,
-                    remediation,
-                    baseUrl,
-                    AuditIssueSeverity.MEDIUM,
-                    AuditIssueConfidence.FIRM,
-                    "Unregistered domains referenced by an application may be registered by attackers to hijack resources or email.",
-                    "Own required domains and eliminate stale references to reduce takeover risk.",
-                    AuditIssueSeverity.LOW,
-                    List.of(base)   // evidence
-            );
-
-            issues.add(issue);
+            if (evidence == null) evidence = base.copyToTempFile();
+            rdapStage.submit(new RdapStage.Lookup(domain, url, evidence, seenIn));
         }
+    }
 
-        return auditResult(issues);
+    /**
+     * RDAP stage thread: the domain is unregistered; file the issue against the original response (a
+     * spilled lookup only has its URL left).
+     */
+    void onClaimable(RdapStage.Lookup lookup) {
+        api.siteMap().add(takeoverIssue(lookup.domain(), lookup.url(), lookup.evidence(), lookup.seenIn()));
+    }
+
+    private static AuditIssue takeoverIssue(String domain, String baseUrl, HttpRequestResponse evidence,
+                                            String seenIn) {
+        // Compose issue
+        String escapedDomain = h(domain);
+        String escapedSeenIn = h(seenIn);
+
+        String detail =
+                "<p>The application references the domain <code>" + escapedDomain + "</code>, " +
+                        "which appears <strong>unregistered</strong> according to RDAP (HTTP 404 or equivalent).</p>" +
+                        "<p><b>First seen in:</b> " + escapedSeenIn + "</p>" +
+                        "<p>This can enable a domain takeover if an attacker registers the domain and serves " +
+                        "controlled content (e.g., scripts, CSS, images) or captures email.</p>";
+
+        String remediation =
+                "<ul>" +
+                        "<li>Register the domain if it is intended to be owned.</li>" +
+                        "<li>Otherwise, remove/replace references (links, assets, CSP, redirects, emails).</li>" +
+                        "<li>Consider CSP hardening and Subresource Integrity where applicable.</li>" +
+                        "</ul>";
+
+        return AuditIssue.auditIssue(
+                "Possible domain takeover: " + escapedDomain,
+                detail,
+                remediation,
+                baseUrl,
+                AuditIssueSeverity.MEDIUM,
+                AuditIssueConfidence.FIRM,
+                "Unregistered domains referenced by an application may be registered by attackers to hijack resources or email.",
+                "Own required domains and eliminate stale references to reduce takeover risk.",
+                AuditIssueSeverity.LOW,
+                evidence == null ? List.of() : List.of(evidence)   // evidence
+        );
     }
 
     // --- helpers ---
 
-    /** Only scan "probably textual" responses; skip everything else. */
-    private static boolean isProbablyTextual(HttpResponse resp) {
-        String ct = null;
+    /**
+     * Whole-body cache first (identical bodies), then per-chunk cache (same template, different data).
+     * Bodies over the byte budget are sampled instead and not cached (fingerprinting them would read it all),
+     * and results the scan deadline cut short are not cached either.
+     */
+    private List<String> bodyDomains(ByteArray body, DomainExtractor.ContentMode mode, String contentEncoding,
+                                     ScanBudget.Deadline deadline) {
+        if (body == null || body.length() == 0) return List.of();
+        if (!budget.fits(body)) return sampledDomains(body, mode, contentEncoding, deadline);
+        if (bodyCache == null) return extractUncached(body, mode, contentEncoding, deadline);
+        // the same bytes sent with and without Content-Encoding are read differently
+        long tag = (long) ContentCoding.readAs(body, contentEncoding) << 8 | mode.ordinal();
+        Fingerprint key = Fingerprint.of(body).tagged(tag);
+        List<String> domains = bodyCache.lookup(key);
+        if (domains == null) {
+            domains = extractUncached(body, mode, contentEncoding, deadline);
+            if (!deadline.hit()) bodyCache.put(key, domains); // a cut-short scan would hide domains for good
+        }
+        return domains;
+    }
+
+    /**
+     * Head and tail windows of an oversized body. The head is read in the body's mode; the tail is read
+     * as text, since the tokenizer state where it starts is unknown. A compressed body has only its head
+     * read (inflated up to where it was cut).
+     */
+    private List<String> sampledDomains(ByteArray body, DomainExtractor.ContentMode mode, String contentEncoding,
+                                        ScanBudget.Deadline deadline) {
+        int n = body.length(), headEnd = budget.headEnd(body);
+        boolean compressed = ContentCoding.isCompressed(body, contentEncoding);
+        int tailStart = compressed ? n : Math.max(headEnd, budget.tailStart(body));
+        budget.recordSampled(tailStart - headEnd);
+
+        Set<String> found = new LinkedHashSet<>(
+                extractUncached(body.subArray(0, headEnd), mode, contentEncoding, deadline));
+        if (tailStart < n && !deadline.expired()) {
+            found.addAll(extractUncached(body.subArray(tailStart, n), DomainExtractor.ContentMode.TEXT, null,
+                    deadline));
+        }
+        return List.copyOf(found);
+    }
+
+    /** Compressed bodies skip the chunk cache: their raw bytes have no stable chunks to share. */
+    private List<String> extractUncached(ByteArray body, DomainExtractor.ContentMode mode, String contentEncoding,
+                                         ScanBudget.Deadline deadline) {
+        if (chunkCache != null && !ContentCoding.isCompressed(body, contentEncoding)) {
+            return chunkCache.extract(body, mode, deadline);
+        }
+        return List.copyOf(extractor.extractDomains(body, mode, contentEncoding, deadline));
+    }
+
+    /** The first value of header {@code name}, or null if there is none. */
+    private static String headerValue(HttpResponse resp, String name) {
         for (HttpHeader h : resp.headers()) {
-            if (h.name().equalsIgnoreCase("Content-Type")) {
-                ct = h.value();
-                break;
-            }
+            if (h.name().equalsIgnoreCase(name)) return h.value();
         }
+        return null;
+    }
+
+    /** Only scan "probably textual" responses (null = no Content-Type header); skip everything else. */
+    static boolean isProbablyTextual(String ct) {
         if (ct == null) return true; // no header -> treat as text (common on misconfigured servers)
 
         String s = ct.toLowerCase(Locale.ROOT).trim();
@@ -0,0 +1,121 @@
+// ScanBudget.java
+// Per-response cost limits for the passive check: body bytes scanned (head/tail sampling above them) and CPU time.
+
+import burp.api.montoya.core.ByteArray;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A body longer than -Ddomainjackr.maxBodyBytes (default 8 MiB; 0 = no limit) is not scanned whole:
+ * only a head and a tail window of half the budget each are, cut back to line breaks so no host is
+ * split (headers are always scanned). Independently, each response gets
+ * -Ddomainjackr.scanDeadlineMs (default 1000; 0 = none) of CPU time (thread CPU time where the JVM
+ * measures it, else wall time) for extraction; it is checked between body pieces and chunks, and the
+ * domains found until then are kept. Both cuts are counted in the metrics.
+ */
+final class ScanBudget {
+    static final long DEFAULT_MAX_BODY_BYTES = 8L << 20;
+    static final long DEFAULT_DEADLINE_MS = 1_000;
+
+    private static final int MAX_LINE_SEARCH = 64 * 1024; // window edges move at most this far to a '\n'
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported();
+
+    private final long maxBodyBytes;
+    private final long deadlineNanos;
+
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder bytesSkipped = new LongAdder();
+    private final LongAdder deadlineHits = new LongAdder();
+
+    ScanBudget(long maxBodyBytes, long deadlineNanos) {
+        this.maxBodyBytes = maxBodyBytes;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    static ScanBudget fromSystemProperty() {
+        return new ScanBudget(Long.getLong("domainjackr.maxBodyBytes", DEFAULT_MAX_BODY_BYTES),
+                TimeUnit.MILLISECONDS.toNanos(Long.getLong("domainjackr.scanDeadlineMs", DEFAULT_DEADLINE_MS)));
+    }
+
+    /** Starts the CPU clock for one response. */
+    Deadline start() {
+        return deadlineNanos <= 0 ? Deadline.NONE : new Deadline(this, cpuTime(), deadlineNanos);
+    }
+
+    /** Whether the whole body may be scanned. */
+    boolean fits(ByteArray body) {
+        return maxBodyBytes <= 0 || body.length() <= maxBodyBytes;
+    }
+
+    /** End of the head window: the last line break within half the budget (or the window end). */
+    int headEnd(ByteArray body) {
+        int end = (int) Math.min(body.length(), maxBodyBytes / 2);
+        for (int i = end; i > 0 && end - i < MAX_LINE_SEARCH; i--) {
+            if (body.getByte(i - 1) == '\n') return i;
+        }
+        return end;
+    }
+
+    /** Start of the tail window: just past the first line break of the last half budget (or its start). */
+    int tailStart(ByteArray body) {
+        int n = body.length();
+        int start = (int) Math.max(0, n - maxBodyBytes / 2);
+        for (int i = start; i < n && i - start < MAX_LINE_SEARCH; i++) {
+            if (body.getByte(i) == '\n') return i + 1;
+        }
+        return start;
+    }
+
+    /** Record a body scanned as head + tail only, {@code skipped} bytes left out. */
+    void recordSampled(long skipped) {
+        sampled.increment();
+        bytesSkipped.add(skipped);
+    }
+
+    /** Publish sampled bodies, bytes skipped and deadline hits under {@code prefix}. */
+    void exportTo(Metrics metrics, String prefix) {
+        metrics.gauge(prefix + ".sampled", sampled::sum);
+        metrics.gauge(prefix + ".bytesSkipped", bytesSkipped::sum);
+        metrics.gauge(prefix + ".deadlineHits", deadlineHits::sum);
+    }
+
+    private static long cpuTime() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /** One response's CPU allowance; used by the thread that started it only. */
+    static final class Deadline {
+        /** Never expires. */
+        static final Deadline NONE = new Deadline(null, 0, 0);
+
+        private final ScanBudget budget;
+        private final long start;
+        private final long limit;
+        private boolean hit;
+
+        private Deadline(ScanBudget budget, long start, long limit) {
+            this.budget = budget;
+            this.start = start;
+            this.limit = limit;
+        }
+
+        /** Whether extraction should stop now (counted once per response). */
+        boolean expired() {
+            if (budget == null) return false;
+            if (hit) return true;
+            if (cpuTime() - start <= limit) return false;
+            hit = true;
+            budget.deadlineHits.increment();
+            return true;
+        }
+
+        /** Whether extraction was stopped by this deadline (its result is partial and must not be cached). */
+        boolean hit() {
+            return hit;
+        }
+    }
+}
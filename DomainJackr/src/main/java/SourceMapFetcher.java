@@ -0,0 +1,335 @@
+// SourceMapFetcher.java
+// Opt-in background stage: follows sourceMappingURL references of JS responses and scans the maps' sourcesContent.
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.logging.Logging;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Minified bundles point at their source map ({@code //# sourceMappingURL=...} at the end of the
+ * script, or a {@code SourceMap} response header); the map's {@code sourcesContent} holds the original
+ * sources, with many more third-party hosts than the bundle. {@link #offer} only looks at the headers
+ * and the last few KB of the body and queues the map URL; it never blocks the scanner thread.
+ *
+ * <p>Maps are fetched by a small pool of low-priority daemon threads behind a bounded queue (a full
+ * queue drops the map), each map URL once. Fetches go through Burp's HTTP API like RDAP lookups, so
+ * the upstream proxy, TLS and logging settings apply. Burp buffers whole responses, so the request
+ * asks for the first {@code maxBytes} only (a Range header); a server that ignores it sends the whole
+ * map, which is then read only up to the cap. The map is read through Gson's JsonReader, one source
+ * file at a time, and each source is extracted in the mode its file name suggests (JS unless it is
+ * markup or a stylesheet).
+ *
+ * <p>Off unless -Ddomainjackr.sourceMaps=true. Limits: -Ddomainjackr.sourceMapThreads (default 2),
+ * -Ddomainjackr.sourceMapQueue (default 64), -Ddomainjackr.sourceMapMaxBytes (default 16 MiB).
+ */
+final class SourceMapFetcher {
+    static final int DEFAULT_THREADS = 2;
+    static final int DEFAULT_QUEUE = 64;
+    static final long DEFAULT_MAX_BYTES = 16L << 20;
+
+    private static final int TAIL_BYTES = 4_096;          // the directive is the script's last line
+    private static final int MAX_REMEMBERED = 16_384;     // map URLs already queued
+    private static final String DIRECTIVE = "sourceMappingURL=";
+    private static final int MAX_REDIRECTS = 3;
+
+    /** Receives the domains found in one map, on a fetcher thread. */
+    interface Listener {
+        void onDomains(HttpRequestResponse script, String mapUrl, List<String> domains);
+    }
+
+    private final MontoyaApi api;
+    private final DomainExtractor extractor;
+    private final Logging log;
+    private final long maxBytes;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> seen = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder fetched = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder truncated = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder domains = new LongAdder();
+
+    SourceMapFetcher(MontoyaApi api, DomainExtractor extractor, int threads, int queueSize, long maxBytes) {
+        if (threads <= 0 || queueSize <= 0 || maxBytes <= 0 || maxBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("threads, queueSize and maxBytes must be > 0 (maxBytes < 2 GiB)");
+        }
+        this.api = api;
+        this.extractor = extractor;
+        this.log = api.logging();
+        this.maxBytes = maxBytes;
+
+        AtomicInteger ids = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "DomainJackr-sourcemap-" + ids.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** Null unless -Ddomainjackr.sourceMaps=true (the stage makes outbound requests of its own). */
+    static SourceMapFetcher fromSystemProperty(MontoyaApi api, DomainExtractor extractor) {
+        if (!Boolean.getBoolean("domainjackr.sourceMaps")) return null;
+        return new SourceMapFetcher(api, extractor,
+                Integer.getInteger("domainjackr.sourceMapThreads", DEFAULT_THREADS),
+                Integer.getInteger("domainjackr.sourceMapQueue", DEFAULT_QUEUE),
+                Long.getLong("domainjackr.sourceMapMaxBytes", DEFAULT_MAX_BYTES));
+    }
+
+    /**
+     * Queue the source map of {@code script} (a JS response, or any response with a SourceMap header)
+     * for fetching; {@code listener} gets its domains later. Returns at once. The queued fetch holds a
+     * temp-file copy of the script (like queued RDAP evidence), so waiting bundles stay off the heap.
+     */
+    void offer(HttpRequestResponse script, String contentType, Listener listener) {
+        if (executor.isShutdown()) return;
+        String ref = headerReference(script.response().headers());
+        if (ref == null && isJavaScript(contentType)) ref = bodyReference(script.response().body());
+        if (ref == null) return;
+
+        String mapUrl = resolve(script.request().url(), ref);
+        if (mapUrl == null) return;
+        if (seen.size() >= MAX_REMEMBERED) seen.clear(); // crude bound; a repeat fetch is harmless
+        if (!seen.add(mapUrl)) return;
+
+        HttpRequestResponse evidence = script.copyToTempFile();
+        try {
+            executor.execute(() -> process(evidence, mapUrl, listener));
+            queued.increment();
+        } catch (RejectedExecutionException e) {
+            seen.remove(mapUrl); // may be offered again once the queue drains
+            dropped.increment();
+        }
+    }
+
+    /** Stop fetching (extension unload); queued maps are discarded. */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Publish the counters under {@code prefix}. */
+    void exportTo(Metrics metrics, String prefix) {
+        metrics.gauge(prefix + ".queued", queued::sum);
+        metrics.gauge(prefix + ".dropped", dropped::sum);
+        metrics.gauge(prefix + ".fetched", fetched::sum);
+        metrics.gauge(prefix + ".failed", failed::sum);
+        metrics.gauge(prefix + ".truncated", truncated::sum);
+        metrics.gauge(prefix + ".bytes", bytes::sum);
+        metrics.gauge(prefix + ".domains", domains::sum);
+        metrics.gauge(prefix + ".pending", () -> executor.getQueue().size());
+    }
+
+    // ---- fetcher threads ----
+
+    private void process(HttpRequestResponse script, String mapUrl, Listener listener) {
+        Set<String> found = new LinkedHashSet<>();
+        boolean cut = false;
+        try {
+            HttpResponse rsp = fetch(mapUrl);
+            if (rsp == null || (rsp.statusCode() != 200 && rsp.statusCode() != 206)) {
+                failed.increment();
+                return;
+            }
+            ByteArray body = rsp.body();
+            cut = body.length() > maxBytes
+                    || (rsp.statusCode() == 206 && totalLength(rsp.headerValue("Content-Range")) > maxBytes);
+            if (body.length() > maxBytes) body = body.subArray(0, (int) maxBytes); // Range was ignored
+            bytes.add(body.length());
+            try (Reader in = ContentCoding.text(body, rsp.headerValue("Content-Encoding"))) {
+                readMap(new JsonReader(in), found);
+            }
+            fetched.increment();
+        } catch (IOException | RuntimeException e) {
+            if (cut) {
+                truncated.increment(); // keep what the first maxBytes gave
+            } else {
+                failed.increment(); // unreachable, not JSON, or not a source map
+            }
+        }
+
+        if (found.isEmpty()) return;
+        domains.add(found.size());
+        log.logToOutput("[SourceMap] " + found.size() + " domain(s) in " + mapUrl);
+        listener.onDomains(script, mapUrl, List.copyOf(found));
+    }
+
+    /** GET the first {@code maxBytes} of the map, following a few redirects the way RdapClient does. */
+    private HttpResponse fetch(String mapUrl) {
+        String current = mapUrl;
+        for (int i = 0; i <= MAX_REDIRECTS; i++) {
+            HttpRequest req = HttpRequest.httpRequestFromUrl(current)
+                    .withAddedHeader("Accept", "application/json, */*;q=0.1")
+                    .withAddedHeader("Range", "bytes=0-" + (maxBytes - 1));
+            HttpResponse rsp = api.http().sendRequest(req).response();
+            if (rsp == null) return null;
+            short code = rsp.statusCode();
+            if (code != 301 && code != 302 && code != 303 && code != 307 && code != 308) return rsp;
+            String location = rsp.headerValue("Location");
+            current = location == null ? null : resolve(current, location);
+            if (current == null) return null;
+        }
+        return null;
+    }
+
+    /** Walk a source map (or an index map's sections) and extract every sourcesContent entry. */
+    private void readMap(JsonReader reader, Set<String> found) throws IOException {
+        reader.setStrictness(Strictness.LENIENT);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) throw new IOException("not a source map");
+        readMapObject(reader, found);
+    }
+
+    private void readMapObject(JsonReader reader, Set<String> found) throws IOException {
+        List<String> sources = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "sources" -> {
+                    reader.beginArray();
+                    while (reader.hasNext()) sources.add(nextStringOrNull(reader));
+                    reader.endArray();
+                }
+                case "sourcesContent" -> {
+                    reader.beginArray();
+                    for (int i = 0; reader.hasNext(); i++) {
+                        String content = nextStringOrNull(reader);
+                        if (content == null || content.isEmpty()) continue;
+                        String name = i < sources.size() ? sources.get(i) : null;
+                        extractor.extractInto(content, modeFor(name), DomainExtractor.INITIAL_STATE, found);
+                    }
+                    reader.endArray();
+                }
+                case "sections" -> { // index map: [{offset, map: {...}}, ...]
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            if (reader.nextName().equals("map") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                                readMapObject(reader, found);
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    }
+                    reader.endArray();
+                }
+                default -> reader.skipValue(); // mappings, names, version, file, sourceRoot
+            }
+        }
+        reader.endObject();
+    }
+
+    // ---- helpers ----
+
+    /** {@code SourceMap} (or the older {@code X-SourceMap}) header value, or null. */
+    private static String headerReference(List<HttpHeader> headers) {
+        for (HttpHeader h : headers) {
+            if (h.name().equalsIgnoreCase("SourceMap") || h.name().equalsIgnoreCase("X-SourceMap")) {
+                String v = h.value().trim();
+                return v.isEmpty() ? null : v;
+            }
+        }
+        return null;
+    }
+
+    /** URL of the last {@code //# sourceMappingURL=} (or {@code //@}) directive in the body's tail, or null. */
+    static String bodyReference(ByteArray body) {
+        if (body == null || body.length() == 0) return null;
+        int from = Math.max(0, body.length() - TAIL_BYTES);
+        String tail = new String(body.subArray(from, body.length()).getBytes(), StandardCharsets.ISO_8859_1);
+        int at = tail.lastIndexOf(DIRECTIVE);
+        while (at >= 0) {
+            int p = at - 1;
+            while (p >= 0 && (tail.charAt(p) == ' ' || tail.charAt(p) == '\t')) p--;
+            if (p >= 2 && (tail.charAt(p) == '#' || tail.charAt(p) == '@') && tail.startsWith("//", p - 2)) {
+                int start = at + DIRECTIVE.length(), end = start;
+                while (end < tail.length() && !Character.isWhitespace(tail.charAt(end))
+                        && tail.charAt(end) != '"' && tail.charAt(end) != '\'') end++;
+                return end > start ? tail.substring(start, end) : null;
+            }
+            at = tail.lastIndexOf(DIRECTIVE, at - 1);
+        }
+        return null;
+    }
+
+    /** Absolute http(s) URL for {@code ref} relative to the script; null for data: URLs and the like. */
+    private static String resolve(String scriptUrl, String ref) {
+        try {
+            URI uri = URI.create(scriptUrl).resolve(ref.trim());
+            String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+            if (!scheme.equals("http") && !scheme.equals("https")) return null;
+            return uri.toString();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean isJavaScript(String contentType) {
+        if (contentType == null) return false;
+        String ct = contentType.toLowerCase(Locale.ROOT);
+        return ct.contains("javascript") || ct.contains("ecmascript");
+    }
+
+    /** How to read one original source, by its file name. */
+    private static DomainExtractor.ContentMode modeFor(String sourceName) {
+        if (sourceName == null) return DomainExtractor.ContentMode.JS;
+        String name = sourceName.toLowerCase(Locale.ROOT);
+        int q = name.indexOf('?');
+        if (q != -1) name = name.substring(0, q);
+        if (name.endsWith(".html") || name.endsWith(".htm") || name.endsWith(".vue") || name.endsWith(".svelte")) {
+            return DomainExtractor.ContentMode.HTML;
+        }
+        if (name.endsWith(".css") || name.endsWith(".scss") || name.endsWith(".sass") || name.endsWith(".less")) {
+            return DomainExtractor.ContentMode.TEXT;
+        }
+        return DomainExtractor.ContentMode.JS;
+    }
+
+    /** Complete length from {@code Content-Range: bytes 0-99/1234}, or -1 when absent or unknown. */
+    private static long totalLength(String contentRange) {
+        if (contentRange == null) return -1;
+        int slash = contentRange.lastIndexOf('/');
+        try {
+            return slash == -1 ? -1 : Long.parseLong(contentRange.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1; // "*"
+        }
+    }
+
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.STRING) return reader.nextString();
+        reader.skipValue();
+        return null;
+    }
+}
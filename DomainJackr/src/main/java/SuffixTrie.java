@@ -0,0 +1,222 @@
+// SuffixTrie.java
+// Public Suffix List compiled into a reversed-label trie of flat int arrays (no per-node objects).
+
+import org.apache.hc.client5.http.psl.DomainType;
+import org.apache.hc.client5.http.psl.PublicSuffixList;
+import org.apache.hc.client5.http.psl.PublicSuffixListParser;
+import org.apache.hc.client5.http.psl.PublicSuffixMatcherLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Drop-in for {@code PublicSuffixMatcher.getDomainRoot(host)}: same rules file, same answers
+ * (including httpclient5's behaviour of returning the suffix itself for PRIVATE rules), but the
+ * reduction is one right-to-left walk over the host chars that returns an index instead of a String.
+ */
+final class SuffixTrie {
+    // Same resource PublicSuffixMatcherLoader.getDefault() reads (httpclient5 5.x).
+    static final String PSL_RESOURCE = "/mozilla/public-suffix-list.txt";
+
+    private static final int RULE = 1;
+    private static final int RULE_PRIVATE = 1 << 1;
+    private static final int WILDCARD = 1 << 2;
+    private static final int WILDCARD_PRIVATE = 1 << 3;
+    private static final int EXCEPTION = 1 << 4;
+
+    private static final int ROOT = 0;
+    private static final int NO_DECISION = -2;
+
+    // Node i: label = labels[labelStart[i] .. +labelLen[i]), children = nodes [firstChild[i] .. +childCount[i]),
+    // children sorted by label so lookups can binary search.
+    private final char[] labels;
+    private final int[] labelStart;
+    private final int[] labelLen;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] flags;
+
+    private static final class Holder {
+        static final SuffixTrie DEFAULT = loadDefault();
+    }
+
+    /** Trie over the PSL bundled with httpclient5 (loaded once). */
+    static SuffixTrie getDefault() {
+        return Holder.DEFAULT;
+    }
+
+    SuffixTrie(Collection<PublicSuffixList> lists) {
+        Builder root = new Builder("");
+        for (PublicSuffixList list : lists) {
+            boolean priv = list.getType() == DomainType.PRIVATE;
+            for (String rule : list.getRules()) {
+                if (rule.startsWith("*.")) {
+                    Builder b = root.path(rule.substring(2));
+                    if (b != null) b.flags = (b.flags & ~WILDCARD_PRIVATE) | WILDCARD | (priv ? WILDCARD_PRIVATE : 0);
+                } else {
+                    Builder b = root.path(rule);
+                    if (b != null) b.flags = (b.flags & ~RULE_PRIVATE) | RULE | (priv ? RULE_PRIVATE : 0);
+                }
+            }
+            if (list.getExceptions() == null) continue;
+            for (String exception : list.getExceptions()) {
+                Builder b = root.path(exception);
+                if (b != null) b.flags |= EXCEPTION;
+            }
+        }
+
+        // Flatten breadth-first so every node's children are contiguous.
+        List<Builder> order = new ArrayList<>();
+        StringBuilder pool = new StringBuilder();
+        order.add(root);
+        for (int i = 0; i < order.size(); i++) {
+            order.addAll(order.get(i).children.values()); // TreeMap: already sorted by label
+        }
+        int n = order.size();
+        labelStart = new int[n];
+        labelLen = new int[n];
+        firstChild = new int[n];
+        childCount = new int[n];
+        flags = new int[n];
+        int next = 1;
+        for (int i = 0; i < n; i++) {
+            Builder b = order.get(i);
+            labelStart[i] = pool.length();
+            labelLen[i] = b.label.length();
+            pool.append(b.label);
+            firstChild[i] = next;
+            childCount[i] = b.children.size();
+            flags[i] = b.flags;
+            next += b.children.size();
+        }
+        labels = pool.toString().toCharArray();
+    }
+
+    /**
+     * Start index (in {@code host}) of what {@code PublicSuffixMatcher.getDomainRoot} would return for
+     * {@code host[from, to)}, or -1 where it would return null. Host must be ASCII (punycode), no
+     * trailing dot; ASCII case is ignored.
+     */
+    int rootStart(CharSequence host, int from, int to) {
+        if (from >= to) return from;
+        if (host.charAt(from) == '.') return -1;
+
+        int answer = NO_DECISION;
+        int tld = -1;
+        int node = ROOT;
+        int end = to;
+        while (true) {
+            int dot = end - 1;
+            while (dot >= from && host.charAt(dot) != '.') dot--;
+            int start = dot + 1;
+            if (tld == -1) tld = start;
+
+            // The deepest decision wins (getDomainRoot tries the longest segment first).
+            int child = findChild(node, host, start, end);
+            if (child != -1 && (flags[child] & EXCEPTION) != 0) {
+                answer = start;
+            } else if (child != -1 && (flags[child] & RULE) != 0) {
+                answer = (flags[child] & RULE_PRIVATE) != 0 ? start : labelLeftOf(host, from, start);
+            } else if (node != ROOT && (flags[node] & WILDCARD) != 0) {
+                answer = (flags[node] & WILDCARD_PRIVATE) != 0 ? start : labelLeftOf(host, from, start);
+            }
+
+            if (child == -1 || start == from) break;
+            node = child;
+            end = dot;
+        }
+        // No rule at all: getDomainRoot falls through to the last (right-most) label.
+        return answer == NO_DECISION ? tld : answer;
+    }
+
+    /** Convenience wrapper returning the root as a String (or null). */
+    String getDomainRoot(String host) {
+        if (host == null) return null;
+        int start = rootStart(host, 0, host.length());
+        return start < 0 ? null : host.substring(start);
+    }
+
+    // ---- helpers ----
+
+    /** Start of the label left of {@code start}, or -1 if {@code start} is already the first label. */
+    private static int labelLeftOf(CharSequence host, int from, int start) {
+        if (start <= from) return -1;
+        int i = start - 2;
+        while (i >= from && host.charAt(i) != '.') i--;
+        return i + 1;
+    }
+
+    private int findChild(int node, CharSequence host, int start, int end) {
+        int lo = firstChild[node];
+        int hi = lo + childCount[node] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareLabel(mid, host, start, end);
+            if (cmp < 0) lo = mid + 1;
+            else if (cmp > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /** Same ordering as String.compareTo on the stored (lowercase) labels. */
+    private int compareLabel(int node, CharSequence host, int start, int end) {
+        int off = labelStart[node];
+        int len = labelLen[node];
+        int hostLen = end - start;
+        int lim = Math.min(len, hostLen);
+        for (int k = 0; k < lim; k++) {
+            char h = host.charAt(start + k);
+            if (h >= 'A' && h <= 'Z') h = (char) (h + 32);
+            int d = labels[off + k] - h;
+            if (d != 0) return d;
+        }
+        return len - hostLen;
+    }
+
+    /** Fails loudly: without the list every host reduces wrongly and the extension finds nothing useful. */
+    private static SuffixTrie loadDefault() {
+        try (InputStream in = PublicSuffixMatcherLoader.class.getResourceAsStream(PSL_RESOURCE)) {
+            if (in == null) throw new IllegalStateException("Public Suffix List not on the classpath: " + PSL_RESOURCE);
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return new SuffixTrie(PublicSuffixListParser.INSTANCE.parseByType(reader));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the Public Suffix List " + PSL_RESOURCE, e);
+        }
+    }
+
+    /** Mutable build-time node; discarded once flattened. */
+    private static final class Builder {
+        final String label;
+        final TreeMap<String, Builder> children = new TreeMap<>();
+        int flags;
+
+        Builder(String label) {
+            this.label = label;
+        }
+
+        /** Node for a dotted rule (walked right-to-left, labels as punycode), or null if unusable. */
+        Builder path(String rule) {
+            Builder b = this;
+            String[] parts = rule.split("\\.");
+            for (int i = parts.length - 1; i >= 0; i--) {
+                String label;
+                try {
+                    label = IDN.toASCII(parts[i], IDN.ALLOW_UNASSIGNED).toLowerCase(Locale.ROOT);
+                } catch (Exception e) {
+                    return null;
+                }
+                if (label.isEmpty()) return null;
+                b = b.children.computeIfAbsent(label, Builder::new);
+            }
+            return b;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+// VectorDelimiters.java
+// SIMD delimiter search for ContextScanner (jdk.incubator.vector); only loaded when the module is present.
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * Classifies the input 64 chars at a time: the block is copied into a char[] (one bulk
+ * {@code String.getChars} for Strings), compared lane-wise against every delimiter, and the lane
+ * masks are packed into a 64-bit set. {@link #next} then is a bit scan until the block runs out.
+ * Everything from U+0085 up is reported as a candidate (covers NEL, LS and PS in one compare).
+ *
+ * <p>Created reflectively by {@link ContextScanner.Delimiters#vector()}; never reference it directly.
+ */
+final class VectorDelimiters extends ContextScanner.Delimiters {
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    private static final int BLOCK = 64;
+
+    private final char[] block = new char[BLOCK];
+    private CharSequence s;
+    private int n;
+    private int base;  // block holds s[base, base + BLOCK)
+    private long bits; // bit k set: block[k] may be a delimiter
+
+    VectorDelimiters() {
+        // Below 8 lanes the compares cost more than the scalar switch they replace.
+        if (SPECIES.length() < 8 || BLOCK % SPECIES.length() != 0) {
+            throw new UnsupportedOperationException("vector species too narrow: " + SPECIES);
+        }
+    }
+
+    @Override
+    ContextScanner.Delimiters reset(CharSequence s) {
+        this.s = s;
+        this.n = s.length();
+        this.base = -BLOCK; // nothing loaded
+        return this;
+    }
+
+    @Override
+    int next(int from) {
+        while (from < n) {
+            if (from < base || from >= base + BLOCK) load(from);
+            long rest = bits & (-1L << (from - base));
+            if (rest != 0) return base + Long.numberOfTrailingZeros(rest);
+            from = base + BLOCK;
+        }
+        return n;
+    }
+
+    private void load(int from) {
+        int len = Math.min(BLOCK, n - from);
+        if (s instanceof String str) {
+            str.getChars(from, from + len, block, 0);
+        } else {
+            for (int k = 0; k < len; k++) block[k] = s.charAt(from + k);
+        }
+        if (len < BLOCK) Arrays.fill(block, len, BLOCK, 'x');
+
+        long m = 0;
+        for (int k = 0; k < BLOCK; k += SPECIES.length()) {
+            ShortVector v = ShortVector.fromCharArray(SPECIES, block, k);
+            VectorMask<Short> hit = v.eq((short) ':')
+                    .or(v.eq((short) '/'))
+                    .or(v.eq((short) '@'))
+                    .or(v.eq((short) '('))
+                    .or(v.eq((short) '-'))
+                    .or(v.eq((short) '%'))
+                    .or(v.eq((short) '&'))
+                    .or(v.eq((short) '\n'))
+                    .or(v.eq((short) '\r'))
+                    .or(v.compare(VectorOperators.UNSIGNED_GE, (short) 0x85));
+            m |= hit.toLong() << k;
+        }
+        base = from;
+        bits = m;
+    }
+}
@@ -0,0 +1,55 @@
+// EngineEquivalenceTest.java
+// The single-pass ContextScanner (and its SIMD cursor) must find the same domains as the original regexes.
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EngineEquivalenceTest {
+    private final DomainExtractor regex = new DomainExtractor(SuffixTrie.getDefault(), DomainExtractor.Engine.REGEX);
+    private final DomainExtractor scanner = new DomainExtractor(SuffixTrie.getDefault(), DomainExtractor.Engine.SCANNER);
+    // Acts as the scanner when jdk.incubator.vector is not loaded.
+    private final DomainExtractor vector = new DomainExtractor(SuffixTrie.getDefault(), DomainExtractor.Engine.VECTOR);
+
+    @Test
+    void tokenSoupMatchesRegex() {
+        for (String input : TestCorpus.soup(1, 20_000)) assertSameDomains(input);
+    }
+
+    @Test
+    void documentsMatchRegex() {
+        for (long seed = 1; seed <= 3; seed++) {
+            assertSameDomains(TestCorpus.html(seed, 200));
+            assertSameDomains(TestCorpus.js(seed, 200));
+            assertSameDomains(TestCorpus.ndjson(seed, 100));
+        }
+    }
+
+    @Test
+    void headerBlockMatchesRegex() {
+        assertSameDomains(String.join("\r\n",
+                "Host: api.header-host.com",
+                "Origin: https://origin-host.net",
+                "Referer: https://ref-host.org/page",
+                "Content-Security-Policy: default-src 'self'; img-src *.img-host.io data:; script-src cdn.js-host.dev",
+                "Link: <https://link-host.com/style.css>; rel=preload",
+                ""));
+    }
+
+    // ---- helpers ----
+
+    private void assertSameDomains(String input) {
+        Set<String> expected = domains(regex, input);
+        assertEquals(expected, domains(scanner, input), () -> "scanner vs regex on [" + input + "]");
+        assertEquals(expected, domains(vector, input), () -> "vector vs regex on [" + input + "]");
+    }
+
+    private static Set<String> domains(DomainExtractor extractor, String input) {
+        List<String> found = extractor.extractDomains(input);
+        return new TreeSet<>(found);
+    }
+}
@@ -0,0 +1,44 @@
+// HtmlTokenizerTest.java
+// HTML mode reads meta CSP as a policy and scans page text for URLs and emails.
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HtmlTokenizerTest {
+    private final DomainExtractor extractor = new DomainExtractor();
+
+    @Test
+    void metaContentSecurityPolicyIsReadAsPolicy() {
+        String html = "<head><meta http-equiv=\"Content-Security-Policy\" "
+                + "content=\"default-src 'self'; script-src cdn.policy-host.com *.wild-policy.net\"></head>";
+        Set<String> found = extract(html, DomainExtractor.ContentMode.HTML);
+        assertTrue(found.containsAll(Set.of("policy-host.com", "wild-policy.net")), () -> "found: " + found);
+    }
+
+    @Test
+    void textNodesAreScannedForUrlsAndEmails() {
+        String html = "<body><p>Write to support@mail-host.org or see https://docs.text-host.io/start.</p>\n"
+                + "<div>plain words, no hosts</div></body>";
+        Set<String> found = extract(html, DomainExtractor.ContentMode.HTML);
+        assertEquals(Set.of("mail-host.org", "text-host.io"), found);
+    }
+
+    @Test
+    void metaRefreshUrlIsStillFound() {
+        String html = "<meta http-equiv=\"refresh\" content=\"0; url=https://refresh-host.com/next\">";
+        assertEquals(Set.of("refresh-host.com"), extract(html, DomainExtractor.ContentMode.HTML));
+    }
+
+    // ---- helpers ----
+
+    private Set<String> extract(String body, DomainExtractor.ContentMode mode) {
+        Set<String> out = new TreeSet<>();
+        extractor.extractInto(body, mode, DomainExtractor.INITIAL_STATE, out);
+        return out;
+    }
+}
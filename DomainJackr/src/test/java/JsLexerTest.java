@@ -0,0 +1,101 @@
+// JsLexerTest.java
+// JS mode resumed across pieces must find what the whole script finds.
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsLexerTest {
+    private final DomainExtractor extractor = new DomainExtractor();
+
+    // A ${...} with nested braces spans the line breaks where bodies are cut.
+    private static final String TEMPLATE_ACROSS_LINES = String.join("\n",
+            "const a = `head ${ f({",
+            "  k: 1, j: { x: 2",
+            "  } }) } tail https://tmpl-host.com/`;",
+            "const b = 'https://after-host.com/';",
+            "");
+
+    @Test
+    void templateExpressionResumesAtEveryLineBreak() {
+        Set<String> whole = extract(TEMPLATE_ACROSS_LINES);
+        assertEquals(Set.of("tmpl-host.com", "after-host.com"), whole);
+        for (int cut = TEMPLATE_ACROSS_LINES.indexOf('\n'); cut != -1; cut = TEMPLATE_ACROSS_LINES.indexOf('\n', cut + 1)) {
+            assertEquals(whole, extract(TEMPLATE_ACROSS_LINES, cut + 1), "cut at " + (cut + 1));
+        }
+    }
+
+    @Test
+    void splitInsideDollarBraceMatchesWhole() {
+        String js = "const a = `x ${{ a: { b: 1 } }.a} https://tmpl-host.com/`;\nconst b = 'https://after-host.com/';\n";
+        Set<String> whole = extract(js);
+        assertEquals(Set.of("tmpl-host.com", "after-host.com"), whole);
+        int dollar = js.indexOf("${");
+        for (int cut = dollar; cut <= js.indexOf('}') + 1; cut++) {
+            assertEquals(whole, extract(js, cut), "cut at " + cut);
+        }
+    }
+
+    @Test
+    void braceDepthSurvivesTheState() {
+        // two open braces inside ${...}: closing both must leave the expression, not the template
+        int state = JsLexer.tokenize("var t = `${ {{", JsLexer.INITIAL, (part, text, start, end, escaped) -> {});
+        Set<String> found = new LinkedHashSet<>();
+        state = JsLexer.tokenize("}} }https://in.template.org/` + 'https://code.string.net/'", state,
+                (part, text, start, end, escaped) -> extractor.extractInto(text.subSequence(start, end), found));
+        assertEquals(new TreeSet<>(Set.of("template.org", "string.net")), new TreeSet<>(found));
+        assertEquals(JsLexer.INITIAL, state & 0x7, "back in code");
+    }
+
+    // A template inside ${...} must not reset the enclosing expression (bundlers emit these a lot).
+    private static final String NESTED_TEMPLATES = String.join("\n",
+            "var a=`x ${c?`y${d}`:\"\"} z`;var t=`https://tpl.org/`;var q='https://str.org/';",
+            "// see https://comment-host.com/ in a comment",
+            "var b = `${ `${ `${ {a: `https://deep-tpl.net/`}.a }` }` } https://outer-tpl.io/`;",
+            "var r = 'https://after-nested.com/';",
+            "");
+
+    @Test
+    void nestedTemplatesKeepCodeAndTextApart() {
+        assertEquals(Set.of("tpl.org", "str.org", "deep-tpl.net", "outer-tpl.io", "after-nested.com"),
+                extract(NESTED_TEMPLATES));
+    }
+
+    @Test
+    void nestedTemplatesResumeAroundEveryDelimiter() {
+        // cuts before and after each backtick, "${", brace and line break (not inside the URLs)
+        Set<String> whole = extract(NESTED_TEMPLATES);
+        for (int i = 0; i < NESTED_TEMPLATES.length(); i++) {
+            if ("`${}\n".indexOf(NESTED_TEMPLATES.charAt(i)) == -1) continue;
+            if (i > 0) assertEquals(whole, extract(NESTED_TEMPLATES, i), "cut at " + i);
+            assertEquals(whole, extract(NESTED_TEMPLATES, i + 1), "cut at " + (i + 1));
+        }
+    }
+
+    @Test
+    void postfixIncrementIsFollowedByDivision() {
+        assertEquals(Set.of("postfix-host.org"), extract("n = a++ / 2 + 'https://postfix-host.org/';\n"));
+        assertEquals(Set.of("postfix-host.org"), extract("n = f(a)-- / 2 + \"https://postfix-host.org/\";\n"));
+        assertEquals(Set.of("postfix-host.org"), extract("n = a[i] ++ / 2 + `https://postfix-host.org/`;\n"));
+        // a regex after a binary operator is still a regex
+        assertEquals(Set.of("regex-host.com"), extract("m = a + /https:\\/\\/regex-host\\.com/.test(u);\n"));
+    }
+
+    // ---- helpers ----
+
+    private Set<String> extract(String js, int... cuts) {
+        Set<String> out = new TreeSet<>();
+        int state = DomainExtractor.INITIAL_STATE, from = 0;
+        for (int cut : cuts) {
+            state = extractor.extractInto(js.substring(from, cut), DomainExtractor.ContentMode.JS, state, out);
+            from = cut;
+        }
+        extractor.extractInto(js.substring(from), DomainExtractor.ContentMode.JS, state, out);
+        return out;
+    }
+}
@@ -0,0 +1,127 @@
+// LookupQueueTest.java
+// Lookups the queue never hands out (closed, or lost from the spill file) must reach onDrop, so DomainStore forgets them.
+
+import burp.api.montoya.logging.Logging;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LookupQueueTest {
+    private final List<String> errors = new CopyOnWriteArrayList<>();
+    private final Logging log = (Logging) Proxy.newProxyInstance(Logging.class.getClassLoader(),
+            new Class<?>[]{Logging.class}, (proxy, method, args) -> {
+                if (method.getName().equals("logToError") && args[0] instanceof String message) errors.add(message);
+                return null;
+            });
+
+    @Test
+    void closeDropsQueuedAndSpilledLookups() throws Exception {
+        Set<String> dropped = ConcurrentHashMap.newKeySet();
+        LookupQueue queue = new LookupQueue(4, LookupQueue.Overflow.SPILL, l -> dropped.add(l.domain()), log);
+        List<String> domains = offer(queue, "d", 10); // 4 in the ring, 6 in the spill file
+        assertEquals(10, queue.depth());
+
+        queue.close();
+        assertEquals(new TreeSet<>(domains), new TreeSet<>(dropped));
+        assertEquals(0, queue.depth());
+        assertNull(queue.take(), "closed");
+    }
+
+    @Test
+    void closeDropsWhatTheConsumerHasNotTaken() throws Exception {
+        Set<String> dropped = ConcurrentHashMap.newKeySet();
+        LookupQueue queue = new LookupQueue(8, LookupQueue.Overflow.BLOCK, l -> dropped.add(l.domain()), log);
+        List<String> domains = offer(queue, "d", 5);
+        String taken = queue.take().domain();
+
+        queue.close();
+        Set<String> expected = new TreeSet<>(domains);
+        expected.remove(taken);
+        assertEquals(expected, new TreeSet<>(dropped));
+    }
+
+    @Test
+    void offerAfterCloseIsDropped() throws IOException {
+        Set<String> dropped = ConcurrentHashMap.newKeySet();
+        LookupQueue queue = new LookupQueue(8, LookupQueue.Overflow.BLOCK, l -> dropped.add(l.domain()), log);
+        queue.close();
+        assertEquals(List.of("late0.com"), offer(queue, "late", 1));
+        assertEquals(Set.of("late0.com"), dropped);
+    }
+
+    @Test
+    void unreadableSpillFileSendsItsEntriesToOnDrop() throws Exception {
+        Set<String> dropped = ConcurrentHashMap.newKeySet();
+        LookupQueue queue = new LookupQueue(2, LookupQueue.Overflow.SPILL, l -> dropped.add(l.domain()), log);
+        List<String> domains = offer(queue, "d", 10); // d0, d1 in the ring, d2..d9 spilled
+        corrupt(queue.spillPath(), 4);                // a byte that is not UTF-8 in the fifth spilled line
+
+        assertEquals("d0.com", queue.take().domain());
+        assertEquals("d1.com", queue.take().domain());
+        Thread consumer = new Thread(() -> {
+            try {
+                queue.take(); // reads the spill file, fails, then waits for more
+            } catch (InterruptedException e) {
+                // done
+            }
+        });
+        consumer.start();
+        for (long until = System.nanoTime() + 5_000_000_000L; dropped.size() < 8 && System.nanoTime() < until; ) {
+            Thread.sleep(10);
+        }
+        consumer.interrupt();
+        consumer.join();
+
+        assertEquals(new TreeSet<>(domains.subList(2, 10)), new TreeSet<>(dropped));
+        assertEquals(0, queue.depth());
+        assertTrue(errors.stream().anyMatch(m -> m.contains("8 of 8")), errors.toString());
+
+        // the queue still spills afterwards
+        offer(queue, "again", 3);
+        assertEquals(Set.of("again0.com", "again1.com", "again2.com"),
+                Set.of(queue.take().domain(), queue.take().domain(), queue.take().domain()));
+        queue.close();
+    }
+
+    // ---- helpers ----
+
+    /** Overwrite a byte in the URL field of spilled line {@code line} (0-based) with 0xFF. */
+    private static void corrupt(Path spill, int line) throws IOException {
+        byte[] bytes = Files.readAllBytes(spill);
+        int at = 0;
+        for (int k = 0; k < line; k++) at = indexOf(bytes, (byte) '\n', at) + 1;
+        at = indexOf(bytes, (byte) 'h', at); // https://site.test/...
+        bytes[at] = (byte) 0xFF;
+        Files.write(spill, bytes);
+    }
+
+    private static int indexOf(byte[] bytes, byte b, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == b) return i;
+        }
+        throw new IllegalStateException("not found");
+    }
+
+    private static List<String> offer(LookupQueue queue, String prefix, int count) {
+        List<String> domains = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String domain = prefix + i + ".com";
+            domains.add(domain);
+            queue.offer(new RdapStage.Lookup(domain, "https://site.test/" + i, null, "body"));
+        }
+        return domains;
+    }
+}
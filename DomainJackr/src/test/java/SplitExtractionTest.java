@@ -0,0 +1,151 @@
+// SplitExtractionTest.java
+// A body read in pieces (tokenizer state carried across) must give the same domains as the whole body.
+
+import burp.api.montoya.core.ByteArray;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SplitExtractionTest {
+    private static final int TRIALS = 200;
+
+    private final DomainExtractor extractor = new DomainExtractor();
+
+    @Test
+    void htmlSplitAtLineBreaksMatchesWhole() {
+        for (long seed = 1; seed <= 5; seed++) {
+            assertSplitsMatchWhole(TestCorpus.html(seed, 80), DomainExtractor.ContentMode.HTML, seed);
+        }
+    }
+
+    @Test
+    void jsSplitAtLineBreaksMatchesWhole() {
+        for (long seed = 1; seed <= 5; seed++) {
+            assertSplitsMatchWhole(TestCorpus.js(seed, 80), DomainExtractor.ContentMode.JS, seed);
+        }
+    }
+
+    @Test
+    void ndjsonRecordsMatchWholeBody() {
+        String body = TestCorpus.ndjson(7, 60);
+        Set<String> whole = extract(body, DomainExtractor.ContentMode.JSON);
+        assertTrue(whole.size() > 60, () -> "too few domains: " + whole.size());
+        Set<String> split = new TreeSet<>();
+        for (String record : body.split("\n")) split.addAll(extract(record, DomainExtractor.ContentMode.JSON));
+        assertEquals(whole, split);
+    }
+
+    /**
+     * A host, a URL and a template literal each hold the byte where a chunk anchor fires; the chunk
+     * must end at the next line break (inside the template, whose state the next chunk resumes), and
+     * the chunked result must equal the whole-body result.
+     */
+    @Test
+    void chunkCacheMatchesWholeWhenAnAnchorFallsInsideACapture() {
+        assertChunkedMatchesWhole("h = \"ops@cdn.", ".com\";", "%s.com");
+        assertChunkedMatchesWhole("u = \"https://", ".net/p?q=1\";", "%s.net");
+        assertChunkedMatchesWhole("t = `see https://", ".org/a",
+                "%s.org", "after-cut.io", "in-expr.dev");
+    }
+
+    // ---- helpers ----
+
+    /**
+     * Finds a label that makes the chunk anchor fire inside {@code open + label + close}, then checks
+     * ChunkCache (cold and warm) against one pass over the whole body in JS mode.
+     */
+    private void assertChunkedMatchesWhole(String open, String close, String... expected) {
+        String filler = filler(480); // an anchor cannot fire in the first MIN_CHUNK bytes
+        Random r = new Random(open.hashCode());
+        for (int attempt = 0; attempt < 100_000; attempt++) {
+            String label = label(r, 24);
+            String head = filler + open;
+            if (anchored(head) || !anchored(head + label)) continue;
+
+            String line = head + label + close;
+            String body = line + "\nhttps://after-cut.io/ ${\"https://in-expr.dev\"} `;\n"
+                    + filler(3 * ChunkCache.MIN_BODY) + "\n";
+            assertEquals(line.length() + 1, ChunkCache.nextBoundary(bytes(body), 0, body.length()),
+                    "the first chunk ends at the anchor line's break");
+
+            Set<String> whole = extract(body, DomainExtractor.ContentMode.JS);
+            for (String domain : expected) {
+                String d = String.format(domain, label);
+                assertTrue(whole.contains(d), () -> d + " not in " + whole);
+            }
+            ChunkCache cache = new ChunkCache(extractor, 64);
+            assertEquals(whole, new TreeSet<>(cache.extract(bytes(body), DomainExtractor.ContentMode.JS)), open);
+            assertEquals(whole, new TreeSet<>(cache.extract(bytes(body), DomainExtractor.ContentMode.JS)),
+                    open + " (cached chunks)");
+            return;
+        }
+        throw new AssertionError("no label puts an anchor inside " + open);
+    }
+
+    /** True when a chunk anchor fires somewhere in {@code text}: the boundary is then the next '\n'. */
+    private static boolean anchored(String text) {
+        String probe = text + "\nX";
+        return ChunkCache.nextBoundary(bytes(probe), 0, probe.length()) == probe.length() - 1;
+    }
+
+    /** Plain JS statements with no line break and no domains. */
+    private static String filler(int length) {
+        StringBuilder sb = new StringBuilder(length + 16);
+        for (int i = 0; sb.length() < length; i++) sb.append('v').append(i).append('=').append(i * 7).append(';');
+        return sb.toString();
+    }
+
+    private static String label(Random r, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) sb.append((char) ('a' + r.nextInt(26)));
+        return sb.toString();
+    }
+
+    /** ByteArray over ISO-8859-1 bytes; ChunkCache only reads length() and getByte(). */
+    private static ByteArray bytes(String text) {
+        byte[] b = text.getBytes(StandardCharsets.ISO_8859_1);
+        return (ByteArray) Proxy.newProxyInstance(ByteArray.class.getClassLoader(), new Class<?>[]{ByteArray.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "length" -> b.length;
+                    case "getByte" -> b[(Integer) args[0]];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /** Random cuts at line breaks (1 to 6 per trial), the state of each piece fed into the next. */
+    private void assertSplitsMatchWhole(String body, DomainExtractor.ContentMode mode, long seed) {
+        Set<String> whole = extract(body, mode);
+        assertTrue(whole.size() > 20, () -> mode + " corpus " + seed + " found too little: " + whole);
+        List<Integer> breaks = new ArrayList<>();
+        for (int i = body.indexOf('\n'); i != -1; i = body.indexOf('\n', i + 1)) breaks.add(i + 1);
+
+        Random r = new Random(seed);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            int[] cuts = r.ints(1 + r.nextInt(6), 0, breaks.size()).map(breaks::get).sorted().distinct().toArray();
+            Set<String> split = new TreeSet<>();
+            int state = DomainExtractor.INITIAL_STATE, from = 0;
+            for (int cut : cuts) {
+                state = extractor.extractInto(body.substring(from, cut), mode, state, split);
+                from = cut;
+            }
+            extractor.extractInto(body.substring(from), mode, state, split);
+            assertEquals(whole, split, () -> mode + " corpus " + seed + " cut at " + Arrays.toString(cuts));
+        }
+    }
+
+    private Set<String> extract(String body, DomainExtractor.ContentMode mode) {
+        Set<String> out = new TreeSet<>();
+        extractor.extractInto(body, mode, DomainExtractor.INITIAL_STATE, out);
+        return out;
+    }
+}
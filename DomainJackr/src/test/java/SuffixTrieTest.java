@@ -0,0 +1,54 @@
+// SuffixTrieTest.java
+// The trie must reduce hosts exactly like httpclient5's PublicSuffixMatcher over the same list.
+
+import org.apache.hc.client5.http.psl.PublicSuffixMatcher;
+import org.apache.hc.client5.http.psl.PublicSuffixMatcherLoader;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SuffixTrieTest {
+    private static final List<String> HOSTS = List.of(
+            // ICANN single and multi-label suffixes
+            "example.com", "www.example.com", "com", "a.b.c.example.de",
+            "bbc.co.uk", "news.bbc.co.uk", "co.uk", "uk",
+            "shop.example.com.au", "example.ac.jp",
+            // PRIVATE suffixes
+            "user.github.io", "deep.user.github.io", "github.io",
+            "app.herokuapp.com", "bucket.s3.amazonaws.com",
+            // wildcard rules and their exceptions
+            "foo.bar.ck", "bar.ck", "www.ck", "x.www.ck",
+            "a.b.kawasaki.jp", "b.kawasaki.jp", "city.kawasaki.jp", "x.city.kawasaki.jp",
+            "site.example.bd", "example.bd",
+            // unknown TLDs and case
+            "host.unknowntld", "unknowntld", "WWW.Example.CO.UK");
+
+    private final PublicSuffixMatcher matcher = PublicSuffixMatcherLoader.getDefault();
+    private final SuffixTrie trie = SuffixTrie.getDefault();
+
+    @Test
+    void rootStartMatchesPublicSuffixMatcher() {
+        for (String host : HOSTS) {
+            String expected = matcher.getDomainRoot(host);
+            int start = trie.rootStart(host, 0, host.length());
+            String actual = start < 0 ? null : host.substring(start);
+            assertEquals(expected, actual == null ? null : actual.toLowerCase(), host);
+        }
+    }
+
+    @Test
+    void rootStartWorksOnASubrange() {
+        String text = "see https://news.bbc.co.uk/x";
+        int from = text.indexOf("news"), to = text.indexOf("/x");
+        assertEquals(text.indexOf("bbc"), trie.rootStart(text, from, to));
+    }
+
+    @Test
+    void bundledListIsLoaded() {
+        // the old fallback knew only "com"
+        assertEquals("bbc.co.uk", trie.getDomainRoot("news.bbc.co.uk"));
+        assertEquals("example.de", trie.getDomainRoot("www.example.de"));
+    }
+}
@@ -0,0 +1,104 @@
+// TestCorpus.java
+// Deterministic HTML, JS, NDJSON and token-soup inputs for the extraction tests.
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Documents are built line by line from templates with random hosts (fixed seeds), so every test run
+ * sees the same input. Line breaks fall where bodies are cut in production: between tags, inside tags
+ * between attributes, and inside scripts (including inside a template's {@code ${...}}).
+ */
+final class TestCorpus {
+    private static final String[] TLDS = { "com", "net", "org", "io", "co.uk", "de", "dev" };
+
+    // Token soup for the engine comparison: scheme, delimiter, context trigger and host fragments.
+    private static final String[] TOKENS = {
+            "http", "https", "HTTPS", "ws", "wss", "ftp", ":", "//", "/", "@", "a", "b.co", "x.com", "é", "ü.de",
+            " ", "\t", "\n", "\r", "\r\n", "(", ")", "url(", "URL(", "'", "\"", "<", ">", ";", "script-src",
+            "img-src", "default-src", "Host", "origin", "content-location", "referer", ".", "-", "_", "%", "+",
+            "example.org", "sub.example.co.uk", "1.2.3.4", "[::1]", "*.foo.com", "'self'", "x", "data-img-src",
+            "%2F", "&#x2F;", "&sol;"
+    };
+
+    private TestCorpus() {}
+
+    static String html(long seed, int lines) {
+        Random r = new Random(seed);
+        StringBuilder sb = new StringBuilder("<!doctype html>\n<html><head>\n");
+        for (int i = 0; i < lines; i++) {
+            switch (r.nextInt(10)) {
+                case 0 -> sb.append("<a href=\"https://").append(host(r)).append("/p\">link</a>\n");
+                case 1 -> sb.append("<img\n  src=\"//").append(host(r)).append("/x.png\"\n  alt=\"\">\n");
+                case 2 -> sb.append("<p>Mail ").append(word(r)).append('@').append(host(r))
+                        .append(" or visit https://").append(host(r)).append("/ today.</p>\n");
+                case 3 -> sb.append("<div style=\"background:url('https://").append(host(r)).append("/bg.png')\">\n");
+                case 4 -> sb.append("<script>\nvar u = 'https://").append(host(r)).append("/api';\n// https://")
+                        .append(host(r)).append("/\n</script>\n");
+                case 5 -> sb.append("<!-- <a href=\"https://").append(host(r)).append("/old\"> -->\n");
+                case 6 -> sb.append("<meta http-equiv=\"Content-Security-Policy\" content=\"script-src ")
+                        .append(host(r)).append(" 'self'\">\n");
+                case 7 -> sb.append("<style>\n.a { background: url(//").append(host(r)).append("/s.png) }\n</style>\n");
+                case 8 -> sb.append("<p data-src=\"https://").append(host(r)).append("/d\" onclick=\"go('https://")
+                        .append(host(r)).append("/')\">text</p>\n");
+                default -> sb.append("<p>").append(word(r)).append(' ').append(word(r)).append("</p>\n");
+            }
+        }
+        return sb.append("</body></html>\n").toString();
+    }
+
+    static String js(long seed, int lines) {
+        Random r = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            switch (r.nextInt(7)) {
+                case 0 -> sb.append("const a").append(i).append(" = \"https://").append(host(r)).append("/x\";\n");
+                case 1 -> sb.append("let t").append(i).append(" = `head ${ f({\n  k: 'https://").append(host(r))
+                        .append("/', j: { x: 2\n  } }) } tail https://").append(host(r)).append("/`;\n");
+                case 2 -> sb.append("/* https://").append(host(r)).append("/ */\n");
+                case 3 -> sb.append("var r").append(i).append(" = /^https?:\\/\\/").append(word(r))
+                        .append("\\//i, d = a / 2 / b;\n");
+                case 4 -> sb.append("s = 'https:\\/\\/").append(host(r)).append("\\/';\n");
+                case 5 -> sb.append("if (x) {\n  send('").append(word(r)).append('@').append(host(r)).append("');\n}\n");
+                default -> sb.append("function ").append(word(r)).append("(a, b) { return a + b; }\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    static String ndjson(long seed, int records) {
+        Random r = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < records; i++) {
+            sb.append("{\"id\":").append(i).append(",\"u\":\"https:\\/\\/").append(host(r))
+                    .append("\\/x\",\"m\":\"").append(word(r)).append('@').append(host(r))
+                    .append("\",\"n\":[1,2.5,true,null,\"//").append(host(r)).append("/p\"]}\n");
+        }
+        return sb.toString();
+    }
+
+    /** {@code count} random token-soup inputs. */
+    static List<String> soup(long seed, int count) {
+        Random r = new Random(seed);
+        List<String> inputs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int k = r.nextInt(40); k > 0; k--) sb.append(TOKENS[r.nextInt(TOKENS.length)]);
+            inputs.add(sb.toString());
+        }
+        return inputs;
+    }
+
+    // ---- helpers ----
+
+    private static String host(Random r) {
+        return (r.nextInt(3) == 0 ? word(r) + "." : "") + word(r) + "-" + r.nextInt(1000) + "." + TLDS[r.nextInt(TLDS.length)];
+    }
+
+    private static String word(Random r) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 3 + r.nextInt(6); i > 0; i--) sb.append((char) ('a' + r.nextInt(26)));
+        return sb.toString();
+    }
+}